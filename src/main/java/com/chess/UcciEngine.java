@@ -0,0 +1,442 @@
+package com.chess;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.FenUtil;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.ai.Evaluator;
+import com.chess.engine.player.ai.FixedDepthSearch;
+import com.chess.engine.player.ai.FixedTimeSearch;
+import com.chess.engine.player.ai.MaterialEvaluator;
+import com.chess.engine.player.ai.MiniMax;
+import com.chess.engine.player.ai.MoveBook;
+import com.chess.engine.player.ai.NetworkEvaluator;
+import com.chess.engine.player.ai.SearchConfig;
+import com.chess.engine.player.ai.SearchInfo;
+
+import java.beans.PropertyChangeEvent;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A headless engine speaking the UCCI protocol over standard input and output, so that it can be driven
+ * by a GUI or pooled as a subprocess behind a game server. It does not load JavaFX and starts quickly.
+ * Moves are in ICCS notation, e.g. "h2e2", and times are in milliseconds.
+ *
+ * Supported commands:
+ * ucci, isready, setoption, position {startpos | fen FEN} [moves ...], banmoves ..., go [ponder|draw]
+ * [infinite | depth D | time T [increment I] [movestogo M]], ponderhit, stop, quit.
+ * UCI-style "setoption name N value V" is also accepted.
+ */
+public class UcciEngine {
+
+    private static final String ENGINE_NAME = "CChess";
+    private static final int DEFAULT_DEPTH = 5; // search depth when go has no limits
+    private static final int DEFAULT_MOVES_TO_GO = 30; // assumed number of remaining moves under sudden death
+    private static final int TIME_MARGIN = 50; // time kept in reserve for communication, in milliseconds
+    private static final int DEFAULT_HASH_SIZE = 48; // in megabytes, about the default number of TT entries
+    private static final int MAX_HASH_SIZE = 1024; // in megabytes
+    private static final int TT_ENTRY_BYTES = 48; // approximate memory used by a TT entry
+
+    private final PrintStream out;
+    private final ExecutorService executor;
+    private final Set<String> bannedMoves;
+    private Board board;
+    private int hashSize;
+    private boolean isRandomised;
+    private boolean useBook;
+    private MoveBook.Selection bookSelection;
+    private Evaluator evaluator;
+    private MiniMax search; // current search, if any
+    private Future<?> searchFuture;
+    private long searchTime; // time allotted to a pondering search once the opponent has moved
+    private boolean isWaiting; // whether the best move is held back until ponderhit or stop
+
+    private UcciEngine(PrintStream out) {
+        this.out = out;
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "search");
+            thread.setDaemon(true);
+            return thread;
+        });
+        bannedMoves = new HashSet<>();
+        board = Board.initialiseBoard();
+        hashSize = DEFAULT_HASH_SIZE;
+        useBook = true;
+        bookSelection = MoveBook.Selection.WEIGHTED;
+        evaluator = SearchConfig.getDefault().getEvaluator();
+    }
+
+    public static void main(String[] args) throws IOException {
+        UcciEngine engine = new UcciEngine(System.out);
+        BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
+        String str;
+
+        while ((str = br.readLine()) != null) {
+            String trimmedStr = str.trim();
+            if (trimmedStr.isEmpty()) continue;
+            if (!engine.execute(trimmedStr.split("\\s+"))) break;
+        }
+        engine.quit();
+    }
+
+    /**
+     * Executes the given command.
+     * @param tokens The tokens of the command.
+     * @return false if the engine should quit, true otherwise.
+     */
+    private boolean execute(String[] tokens) {
+        switch (tokens[0]) {
+            case "ucci":
+            case "uci":
+                out.println("id name " + ENGINE_NAME);
+                out.println("option usebook type check default true");
+                out.println("option bookmode type combo var weighted var best var uniform default weighted");
+                out.println("option hashsize type spin min 1 max " + MAX_HASH_SIZE + " default " + DEFAULT_HASH_SIZE);
+                out.println("option randomness type combo var none var small default none");
+                out.println("option evaluation type combo var classic var material var network default classic");
+                out.println(tokens[0].equals("ucci") ? "ucciok" : "uciok");
+                break;
+            case "isready":
+                out.println("readyok");
+                break;
+            case "setoption":
+                awaitSearch();
+                setOption(tokens);
+                break;
+            case "position":
+                awaitSearch();
+                setPosition(tokens);
+                break;
+            case "banmoves":
+                for (int i = 1; i < tokens.length; i++) {
+                    bannedMoves.add(tokens[i]);
+                }
+                break;
+            case "go":
+                awaitSearch();
+                go(tokens);
+                break;
+            case "ponderhit":
+                ponderHit();
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                return false;
+            default:
+                out.println("info string unknown command " + tokens[0]);
+        }
+        return true;
+    }
+
+    /**
+     * Sets an option given as "setoption NAME VALUE" or "setoption name NAME value VALUE".
+     */
+    private void setOption(String[] tokens) {
+        List<String> args = new ArrayList<>();
+        for (int i = 1; i < tokens.length; i++) {
+            if (!tokens[i].equals("name") && !tokens[i].equals("value")) {
+                args.add(tokens[i]);
+            }
+        }
+        if (args.size() != 2) {
+            out.println("info string invalid option");
+            return;
+        }
+
+        String name = args.get(0).toLowerCase();
+        String value = args.get(1).toLowerCase();
+        switch (name) {
+            case "usebook":
+                useBook = Boolean.parseBoolean(value);
+                break;
+            case "bookmode":
+                switch (value) {
+                    case "weighted":
+                        bookSelection = MoveBook.Selection.WEIGHTED;
+                        break;
+                    case "best":
+                        bookSelection = MoveBook.Selection.BEST_ONLY;
+                        break;
+                    case "uniform":
+                        bookSelection = MoveBook.Selection.UNIFORM;
+                        break;
+                    default:
+                        out.println("info string invalid bookmode " + value);
+                }
+                break;
+            case "hashsize":
+                try {
+                    hashSize = Math.max(1, Math.min(Integer.parseInt(value), MAX_HASH_SIZE));
+                } catch (NumberFormatException e) {
+                    out.println("info string invalid hashsize " + value);
+                }
+                break;
+            case "randomness":
+                isRandomised = !value.equals("none");
+                break;
+            case "evaluation":
+                setEvaluation(value);
+                break;
+            default:
+                out.println("info string unknown option " + name);
+        }
+    }
+
+    /**
+     * Sets the evaluator with the given name, keeping the current one if it is not available.
+     */
+    private void setEvaluation(String name) {
+        switch (name) {
+            case "classic":
+                evaluator = SearchConfig.getDefault().getEvaluator();
+                break;
+            case "material":
+                evaluator = MaterialEvaluator.getInstance();
+                break;
+            case "network":
+                Optional<NetworkEvaluator> network = NetworkEvaluator.getDefault();
+                if (!network.isPresent()) {
+                    out.println("info string no network found");
+                    return;
+                }
+                evaluator = network.get();
+                break;
+            default:
+                out.println("info string unknown evaluation " + name);
+        }
+    }
+
+    /**
+     * Sets up the board given as "position {startpos | fen FEN} [moves ...]".
+     */
+    private void setPosition(String[] tokens) {
+        Board newBoard;
+        int index = 2;
+        if (tokens.length >= 2 && tokens[1].equals("startpos")) {
+            newBoard = Board.initialiseBoard();
+        } else if (tokens.length >= 3 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (; index < tokens.length && !tokens[index].equals("moves"); index++) {
+                fen.append(tokens[index]).append(' ');
+            }
+            try {
+                newBoard = FenUtil.fenToBoard(fen.toString());
+            } catch (IllegalArgumentException e) {
+                out.println("info string " + e.getMessage());
+                return;
+            }
+        } else {
+            out.println("info string invalid position");
+            return;
+        }
+
+        if (index < tokens.length && tokens[index].equals("moves")) {
+            for (index++; index < tokens.length; index++) {
+                Optional<Move> move = Move.iccsToMove(newBoard, tokens[index]);
+                if (!move.isPresent()) {
+                    out.println("info string invalid move " + tokens[index]);
+                    return;
+                }
+                newBoard.makeMove(move.get());
+            }
+        }
+        board = newBoard;
+        bannedMoves.clear();
+    }
+
+    /**
+     * Starts a search given as "go [ponder|draw] [infinite | depth D | time T [increment I] [movestogo M]]".
+     * The best move is printed when the search ends, unless pondering or searching infinitely,
+     * in which case it is held back until ponderhit or stop.
+     */
+    private void go(String[] tokens) {
+        boolean isPondering = false;
+        boolean isInfinite = false;
+        int depth = 0;
+        long time = 0;
+        long increment = 0;
+        int movesToGo = DEFAULT_MOVES_TO_GO;
+
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                switch (tokens[i]) {
+                    case "ponder":
+                        isPondering = true;
+                        break;
+                    case "infinite":
+                        isInfinite = true;
+                        break;
+                    case "depth":
+                        depth = Integer.parseInt(tokens[++i]);
+                        break;
+                    case "time":
+                        time = Long.parseLong(tokens[++i]);
+                        break;
+                    case "increment":
+                        increment = Long.parseLong(tokens[++i]);
+                        break;
+                    case "movestogo":
+                        movesToGo = Math.max(Integer.parseInt(tokens[++i]), 1);
+                        break;
+                    default: // ignore draw offers and opponent clocks
+                        break;
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            out.println("info string invalid go command");
+            return;
+        }
+
+        List<Move> legalMoves = new ArrayList<>();
+        for (Move move : board.getAllowedMoves()) {
+            if (!bannedMoves.contains(move.toIccs())) {
+                legalMoves.add(move);
+            }
+        }
+        if (legalMoves.isEmpty()) {
+            out.println("nobestmove");
+            return;
+        }
+        if (useBook && !isPondering && !isInfinite) {
+            Optional<Move> bookMove = MoveBook.getDefault().getMove(board, bookSelection)
+                    .filter(legalMoves::contains);
+            if (bookMove.isPresent()) {
+                out.println("bestmove " + bookMove.get().toIccs());
+                return;
+            }
+        }
+
+        SearchConfig config = new SearchConfig.Builder()
+                .setEvaluator(evaluator)
+                .setRandomised(isRandomised)
+                .setSeed(System.nanoTime())
+                .setTTSize(getTTSize())
+                .build();
+        if (depth == 0 && time == 0 && !isInfinite) {
+            depth = DEFAULT_DEPTH;
+        }
+        searchTime = time > 0 ? Math.max(Math.min(time / movesToGo + increment, time - TIME_MARGIN), 1) : 0;
+        long endTime = searchTime > 0 && !isPondering ? System.currentTimeMillis() + searchTime : Long.MAX_VALUE;
+
+        MiniMax newSearch;
+        if (depth > 0) {
+            newSearch = new FixedDepthSearch(board.getCopy(), legalMoves, depth, config);
+            newSearch.addPropertyChangeListener(this::printInfo);
+            newSearch.setEndTime(endTime);
+        } else {
+            newSearch = new FixedTimeSearch(board.getCopy(), legalMoves, this::printInfo, endTime, config);
+        }
+
+        synchronized (this) {
+            search = newSearch;
+            isWaiting = isPondering || isInfinite;
+        }
+        searchFuture = executor.submit(() -> {
+            Move bestMove = newSearch.search();
+            SearchInfo searchInfo = newSearch.getSearchInfo();
+            synchronized (this) {
+                while (isWaiting) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                search = null;
+            }
+            StringBuilder sb = new StringBuilder("bestmove ").append(bestMove.toIccs());
+            if (searchInfo != null && searchInfo.getPv().size() > 1 && searchInfo.getBestMove().equals(bestMove)) {
+                sb.append(" ponder ").append(searchInfo.getPv().get(1).toIccs());
+            }
+            out.println(sb);
+        });
+    }
+
+    /**
+     * Returns the number of TT entries fitting in the current hash size.
+     */
+    private int getTTSize() {
+        return (int) ((long) hashSize * (1 << 20) / TT_ENTRY_BYTES);
+    }
+
+    /**
+     * Prints the search information of a completed iteration.
+     */
+    private void printInfo(PropertyChangeEvent evt) {
+        SearchInfo searchInfo = (SearchInfo) evt.getNewValue();
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("info depth ").append(searchInfo.getDepth())
+                .append(" score ").append(searchInfo.getScore())
+                .append(" time ").append(searchInfo.getTime())
+                .append(" nodes ").append(searchInfo.getNodes())
+                .append(" nps ").append(searchInfo.getNps())
+                .append(" pv");
+        for (Move move : searchInfo.getPv()) {
+            sb.append(" ").append(move.toIccs());
+        }
+
+        out.println(sb);
+    }
+
+    /**
+     * Switches a pondering search to a normal one: the opponent has made the expected move.
+     */
+    private synchronized void ponderHit() {
+        if (search == null) return;
+        if (searchTime > 0) {
+            search.setEndTime(System.currentTimeMillis() + searchTime);
+        }
+        isWaiting = false;
+        notifyAll();
+    }
+
+    /**
+     * Stops the current search, if any, which then prints its best move.
+     */
+    private synchronized void stopSearch() {
+        if (search == null) return;
+        search.stop();
+        isWaiting = false;
+        notifyAll();
+    }
+
+    /**
+     * Waits for the current search, if any, to print its best move, stopping it first.
+     */
+    private void awaitSearch() {
+        if (searchFuture == null) return;
+        stopSearch();
+        try {
+            searchFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+        }
+        searchFuture = null;
+    }
+
+    /**
+     * Stops any search and shuts the engine down.
+     */
+    private void quit() {
+        awaitSearch();
+        executor.shutdown();
+        out.println("bye");
+    }
+}
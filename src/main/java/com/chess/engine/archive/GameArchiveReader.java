@@ -0,0 +1,134 @@
+package com.chess.engine.archive;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+import static com.chess.engine.archive.GameArchiveWriter.*;
+
+/**
+ * Reads games from a binary game archive written by {@link GameArchiveWriter}.
+ * Games can be streamed in order through {@link #next()} or read directly by number through the index.
+ */
+public class GameArchiveReader implements Closeable {
+
+    private final FileChannel channel;
+    private final long[] offsets;
+    private DataInputStream dis; // stream of games in order, created on first use
+    private int nextGame;
+
+    /**
+     * Opens the archive at the given file and reads its index.
+     * @param file The archive file.
+     * @throws IOException If the file cannot be read or is not an archive.
+     */
+    public GameArchiveReader(File file) throws IOException {
+        channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Invalid archive");
+            }
+            ByteBuffer footer = read(channel.size() - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            int numGames = footer.getInt();
+            if (footer.getInt() != MAGIC || numGames < 0) {
+                throw new IOException("Invalid archive footer");
+            }
+            offsets = new long[numGames];
+            read(indexOffset, 8 * numGames).asLongBuffer().get(offsets);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the given number of bytes at the given offset of the archive.
+     */
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    public int getNumGames() {
+        return offsets.length;
+    }
+
+    /**
+     * Returns the offset of the given game in the archive.
+     * @param game The number of the game, starting from 0.
+     * @return The offset of the given game in the archive.
+     */
+    public long getOffset(int game) {
+        return offsets[game];
+    }
+
+    /**
+     * Reads the given game directly through the index.
+     * @param game The number of the game, starting from 0.
+     * @return The given game.
+     * @throws IOException If the game cannot be read.
+     */
+    public GameRecord readGame(int game) throws IOException {
+        ByteBuffer gameHeader = read(offsets[game], GAME_HEADER_SIZE);
+        GameRecord.Result result = toResult(gameHeader.get());
+        int numMoves = Short.toUnsignedInt(gameHeader.getShort());
+        short[] moves = new short[numMoves];
+        read(offsets[game] + GAME_HEADER_SIZE, 2 * numMoves).asShortBuffer().get(moves);
+        return new GameRecord(result, moves);
+    }
+
+    /**
+     * Reads the next game in order, streaming through the archive.
+     * @return The next game, or null if all games have been read.
+     * @throws IOException If the game cannot be read.
+     */
+    public GameRecord next() throws IOException {
+        if (nextGame >= offsets.length) {
+            return null;
+        }
+        if (dis == null) {
+            channel.position(HEADER_SIZE);
+            dis = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+        }
+        nextGame++;
+
+        GameRecord.Result result = toResult(dis.readByte());
+        int numMoves = dis.readUnsignedShort();
+        short[] moves = new short[numMoves];
+        for (int i = 0; i < numMoves; i++) {
+            moves[i] = dis.readShort();
+        }
+        return new GameRecord(result, moves);
+    }
+
+    /**
+     * Returns the result with the given code.
+     */
+    static GameRecord.Result toResult(byte code) throws IOException {
+        GameRecord.Result[] results = GameRecord.Result.values();
+        if (code < 0 || code >= results.length) {
+            throw new IOException("Invalid result " + code);
+        }
+        return results[code];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,95 @@
+package com.chess.engine.archive;
+
+import com.chess.engine.board.Move;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes games into a binary game archive, one after another. All values are big-endian.
+ * The archive starts with a header (magic number and version); each game is stored as its result (1 byte),
+ * its number of moves (2 bytes) and its moves (2 bytes each). On closing, an index of the offsets of
+ * all games (8 bytes each) is appended, followed by a footer with the offset of the index,
+ * the number of games and the magic number again, so that any game can be found directly.
+ */
+public class GameArchiveWriter implements Closeable {
+
+    static final int MAGIC = 0x58514741; // "XQGA"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int GAME_HEADER_SIZE = 3;
+    static final int FOOTER_SIZE = 16;
+    static final int MAX_MOVES = 0xFFFF;
+
+    private final DataOutputStream dos;
+    private long[] offsets;
+    private int numGames;
+    private long offset;
+
+    /**
+     * Creates a writer of a new archive at the given file, replacing any existing file.
+     * @param file The file to write to.
+     * @throws IOException If the file cannot be written.
+     */
+    public GameArchiveWriter(File file) throws IOException {
+        dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        offsets = new long[1024];
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        offset = HEADER_SIZE;
+    }
+
+    /**
+     * Writes a game with the given moves from the initial board and the given result.
+     * @param moves The moves of the game.
+     * @param result The result of the game.
+     * @throws IOException If the game cannot be written.
+     */
+    public void write(List<Move> moves, GameRecord.Result result) throws IOException {
+        write(GameRecord.of(moves, result));
+    }
+
+    /**
+     * Writes the given game.
+     * @param game The game to write.
+     * @throws IOException If the game cannot be written.
+     */
+    public void write(GameRecord game) throws IOException {
+        int numMoves = game.getNumMoves();
+        if (numMoves > MAX_MOVES) {
+            throw new IllegalArgumentException("Game too long: " + numMoves + " moves");
+        }
+        if (numGames == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[numGames++] = offset;
+
+        dos.writeByte(game.getResult().ordinal());
+        dos.writeShort(numMoves);
+        for (int i = 0; i < numMoves; i++) {
+            dos.writeShort(game.getMove(i));
+        }
+        offset += GAME_HEADER_SIZE + 2L * numMoves;
+    }
+
+    /**
+     * Writes the index and footer and closes the archive.
+     */
+    @Override
+    public void close() throws IOException {
+        long indexOffset = offset;
+        for (int i = 0; i < numGames; i++) {
+            dos.writeLong(offsets[i]);
+        }
+        dos.writeLong(indexOffset);
+        dos.writeInt(numGames);
+        dos.writeInt(MAGIC);
+        dos.close();
+    }
+}
@@ -0,0 +1,146 @@
+package com.chess.engine.archive;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtil;
+import com.chess.engine.board.Coordinate;
+import com.chess.engine.board.Move;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Represents a game stored in a game archive: its result and its moves from the initial board.
+ * Each move is encoded in 2 bytes as (source index << 7) | destination index, so that games can be
+ * read without creating move objects; moves are only resolved when a game is replayed on a board.
+ */
+public class GameRecord {
+
+    private static final int INDEX_BITS = 7;
+    private static final int INDEX_MASK = (1 << INDEX_BITS) - 1;
+
+    private final Result result;
+    private final short[] moves;
+
+    GameRecord(Result result, short[] moves) {
+        this.result = result;
+        this.moves = moves;
+    }
+
+    /**
+     * Returns a record of the given moves from the initial board with the given result.
+     * @param moves The moves of the game.
+     * @param result The result of the game.
+     * @return A record of the given game.
+     */
+    public static GameRecord of(List<Move> moves, Result result) {
+        short[] encodedMoves = new short[moves.size()];
+        for (int i = 0; i < encodedMoves.length; i++) {
+            encodedMoves[i] = encode(moves.get(i));
+        }
+        return new GameRecord(result, encodedMoves);
+    }
+
+    /**
+     * Returns the 2-byte encoding of the given move.
+     * @param move The move to encode.
+     * @return The 2-byte encoding of the given move.
+     */
+    public static short encode(Move move) {
+        int srcIndex = BoardUtil.positionToIndex(move.getMovedPiece().getPosition());
+        int destIndex = BoardUtil.positionToIndex(move.getDestPosition());
+        return (short) (srcIndex << INDEX_BITS | destIndex);
+    }
+
+    /**
+     * Returns the move, if any, with the given encoding on the given board.
+     * @param board The board to make the move on.
+     * @param encodedMove The 2-byte encoding of the move.
+     * @return The move, if any, with the given encoding on the given board.
+     */
+    public static Optional<Move> decode(Board board, short encodedMove) {
+        return board.getMove(indexToPosition(getSrcIndex(encodedMove)), indexToPosition(getDestIndex(encodedMove)));
+    }
+
+    /**
+     * Returns the source index of the given encoded move.
+     */
+    public static int getSrcIndex(short encodedMove) {
+        return encodedMove >> INDEX_BITS & INDEX_MASK;
+    }
+
+    /**
+     * Returns the destination index of the given encoded move.
+     */
+    public static int getDestIndex(short encodedMove) {
+        return encodedMove & INDEX_MASK;
+    }
+
+    /**
+     * Returns the position corresponding to the given point index.
+     */
+    private static Coordinate indexToPosition(int index) {
+        return new Coordinate(index / Board.NUM_COLS, index % Board.NUM_COLS);
+    }
+
+    /**
+     * Replays this game from the initial board and returns its moves, if all of them are legal.
+     * @return The moves of this game, if all of them are legal.
+     */
+    public Optional<List<Move>> toMoves() {
+        Board board = Board.initialiseBoard();
+        List<Move> moveList = new ArrayList<>(moves.length);
+
+        for (short encodedMove : moves) {
+            Optional<Move> move = decode(board, encodedMove);
+            if (!move.isPresent()) {
+                return Optional.empty();
+            }
+            board.makeMove(move.get());
+            moveList.add(move.get());
+        }
+
+        return Optional.of(Collections.unmodifiableList(moveList));
+    }
+
+    public Result getResult() {
+        return result;
+    }
+
+    public int getNumMoves() {
+        return moves.length;
+    }
+
+    /**
+     * Returns the encoding of the move at the given ply.
+     * @param ply The ply of the move.
+     * @return The encoding of the move at the given ply.
+     */
+    public short getMove(int ply) {
+        return moves[ply];
+    }
+
+    /**
+     * Represents the result of a game.
+     */
+    public enum Result {
+        UNKNOWN,
+        RED_WIN,
+        DRAW,
+        BLACK_WIN;
+
+        /**
+         * Returns the result of a game ending on the given board: a win if the current player is checkmated,
+         * unknown otherwise.
+         * @param board The final board of the game.
+         * @return The result of a game ending on the given board.
+         */
+        public static Result getResult(Board board) {
+            if (!board.isCurrPlayerCheckmated()) {
+                return UNKNOWN;
+            }
+            return board.getCurrPlayer().getAlliance().isRed() ? BLACK_WIN : RED_WIN;
+        }
+    }
+}
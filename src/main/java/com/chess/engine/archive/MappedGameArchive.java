@@ -0,0 +1,214 @@
+package com.chess.engine.archive;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static com.chess.engine.archive.GameArchiveWriter.*;
+
+/**
+ * Represents a game archive memory-mapped into read-only segments, for scanning large collections of games
+ * in parallel without reading them onto the heap. Segments end at game boundaries, so every game lies in
+ * exactly one segment and is handed out as a slice of it. Games are replayed on a board local to each thread,
+ * which is restored to the initial board after every game.
+ */
+public class MappedGameArchive {
+
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+    private static final ThreadLocal<Board> BOARDS = ThreadLocal.withInitial(Board::initialiseBoard);
+
+    private final long[] offsets; // offset of each game
+    private final long[] ends; // offset after the end of each game
+    private final int[] firstGames; // first game of each segment
+    private final long[] segmentOffsets; // offset of each segment
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Maps the archive at the given file.
+     * @param file The archive file.
+     * @throws IOException If the file cannot be mapped or is not an archive.
+     */
+    public MappedGameArchive(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Invalid archive");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Invalid archive");
+            }
+            ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, size - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            int numGames = footer.getInt();
+            if (footer.getInt() != MAGIC || numGames < 0 || indexOffset + 8L * numGames + FOOTER_SIZE != size) {
+                throw new IOException("Invalid archive footer");
+            }
+
+            offsets = new long[numGames];
+            ends = new long[numGames];
+            long remaining = 8L * numGames;
+            for (int game = 0; remaining > 0; ) { // map the index in chunks of whole offsets
+                long chunkSize = Math.min(remaining, MAX_SEGMENT_SIZE & ~7L);
+                ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset + 8L * game, chunkSize);
+                int numOffsets = (int) (chunkSize / 8);
+                index.asLongBuffer().get(offsets, game, numOffsets);
+                game += numOffsets;
+                remaining -= chunkSize;
+            }
+            for (int game = 0; game < numGames; game++) {
+                ends[game] = game + 1 < numGames ? offsets[game + 1] : indexOffset;
+            }
+
+            List<Integer> firstGameList = new ArrayList<>();
+            List<MappedByteBuffer> segmentList = new ArrayList<>();
+            int firstGame = 0;
+            while (firstGame < numGames) {
+                int lastGame = firstGame;
+                while (lastGame + 1 < numGames && ends[lastGame + 1] - offsets[firstGame] <= MAX_SEGMENT_SIZE) {
+                    lastGame++;
+                }
+                long segmentSize = ends[lastGame] - offsets[firstGame];
+                if (segmentSize > MAX_SEGMENT_SIZE) {
+                    throw new IOException("Game too large");
+                }
+                firstGameList.add(firstGame);
+                segmentList.add(channel.map(FileChannel.MapMode.READ_ONLY, offsets[firstGame], segmentSize));
+                firstGame = lastGame + 1;
+            }
+            firstGames = firstGameList.stream().mapToInt(Integer::intValue).toArray();
+            segments = segmentList.toArray(new MappedByteBuffer[0]);
+            segmentOffsets = new long[segments.length];
+            for (int i = 0; i < segments.length; i++) {
+                segmentOffsets[i] = offsets[firstGames[i]];
+            }
+        }
+    }
+
+    public int getNumGames() {
+        return offsets.length;
+    }
+
+    /**
+     * Returns a read-only slice of the mapped archive holding the given game: its result, number of moves and moves.
+     * @param game The number of the game, starting from 0.
+     * @return A slice holding the given game.
+     */
+    public ByteBuffer getSlice(int game) {
+        int segment = getSegment(game);
+        int start = (int) (offsets[game] - segmentOffsets[segment]);
+        int end = (int) (ends[game] - segmentOffsets[segment]);
+        ByteBuffer slice = segments[segment].duplicate();
+        slice.limit(end).position(start);
+        return slice.slice();
+    }
+
+    /**
+     * Returns the segment holding the given game.
+     */
+    private int getSegment(int game) {
+        int segment = Arrays.binarySearch(firstGames, game);
+        return segment >= 0 ? segment : -segment - 2;
+    }
+
+    /**
+     * Decodes the given game from its slice.
+     * @param game The number of the game, starting from 0.
+     * @return The given game.
+     * @throws IllegalStateException If the game is corrupt.
+     */
+    public GameRecord getGame(int game) {
+        ByteBuffer slice = getSlice(game);
+        GameRecord.Result result;
+        try {
+            result = GameArchiveReader.toResult(slice.get());
+        } catch (IOException e) {
+            throw new IllegalStateException("Corrupt game " + game, e);
+        }
+        int numMoves = Short.toUnsignedInt(slice.getShort());
+        if (slice.remaining() != 2 * numMoves) {
+            throw new IllegalStateException("Corrupt game " + game);
+        }
+        short[] moves = new short[numMoves];
+        slice.asShortBuffer().get(moves);
+        return new GameRecord(result, moves);
+    }
+
+    /**
+     * Returns a parallel stream of all games in the archive.
+     * @return A parallel stream of all games in the archive.
+     */
+    public Stream<GameRecord> games() {
+        return IntStream.range(0, getNumGames()).parallel().mapToObj(this::getGame);
+    }
+
+    /**
+     * Replays all games in parallel on boards local to each thread, visiting every position up to the given ply
+     * together with the move played from it. A game stops being replayed at its first illegal move.
+     * The visitor is called concurrently and must not keep or modify the board.
+     * @param maxPlies The maximum number of moves to replay in each game.
+     * @param visitor The visitor of positions.
+     * @return The number of games replayed without an illegal move.
+     */
+    public long replayAll(int maxPlies, PositionVisitor visitor) {
+        return IntStream.range(0, getNumGames()).parallel()
+                .filter(game -> replay(getGame(game), maxPlies, visitor))
+                .count();
+    }
+
+    /**
+     * Replays the given game on the board of the current thread, then restores that board.
+     * @return true if all moves replayed were legal, false otherwise.
+     */
+    private static boolean replay(GameRecord game, int maxPlies, PositionVisitor visitor) {
+        Board board = BOARDS.get();
+        int numPlies = Math.min(game.getNumMoves(), maxPlies);
+        Move[] moves = new Move[numPlies];
+        int ply = 0;
+
+        try {
+            for (; ply < numPlies; ply++) {
+                Optional<Move> move = GameRecord.decode(board, game.getMove(ply));
+                if (!move.isPresent()) {
+                    return false;
+                }
+                visitor.visit(board, move.get(), ply, game.getResult());
+                board.makeMove(move.get());
+                moves[ply] = move.get();
+            }
+            return true;
+        } finally {
+            for (int i = ply - 1; i >= 0; i--) {
+                board.unmakeMove(moves[i]);
+            }
+        }
+    }
+
+    /**
+     * Represents a visitor of the positions of replayed games.
+     */
+    @FunctionalInterface
+    public interface PositionVisitor {
+
+        /**
+         * Visits a position of a game.
+         * @param board The board before the move.
+         * @param move The move played from the board.
+         * @param ply The ply of the move.
+         * @param result The result of the game.
+         */
+        void visit(Board board, Move move, int ply, GameRecord.Result result);
+    }
+}
@@ -19,7 +19,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
 
 import static com.chess.engine.pieces.Piece.*;
 
@@ -32,10 +31,13 @@ public class Board {
     public static final int NUM_COLS = 9;
     public static final int RIVER_ROW_RED = 5;
     public static final int RIVER_ROW_BLACK = 4;
-    private static final Zobrist ZOBRIST = new Zobrist();
+    private static final Zobrist ZOBRIST = Zobrist.getDefault();
 
     private final List<Point> points;
     private final List<PlayerInfo> playerInfoHistory;
+    private final Material redMaterial;
+    private final Material blackMaterial;
+    private final List<PieceListener> pieceListeners;
     private PlayerInfo playerInfo;
     private Alliance currTurn;
     private long zobristKey;
@@ -43,6 +45,12 @@ public class Board {
     private Board(Builder builder) {
         points = createBoard(builder);
         playerInfoHistory = new ArrayList<>();
+        redMaterial = new Material();
+        blackMaterial = new Material();
+        pieceListeners = new ArrayList<>();
+        for (Piece piece : builder.boardConfig.values()) {
+            getMaterial(piece.getAlliance()).addPiece(piece);
+        }
         playerInfo = generatePlayerInfo();
         currTurn = builder.currTurn;
         zobristKey = ZOBRIST.getKey(points, currTurn);
@@ -116,17 +124,15 @@ public class Board {
      * Generates information related to both players on this board.
      */
     private PlayerInfo generatePlayerInfo() {
+        Relations relations = new Relations();
+
         Collection<Piece> redPieces = new ArrayList<>();
         Collection<Move> redLegalMoves = new ArrayList<>();
         int redMobilityValue = 0;
-        Collection<Attack> redAttacks = new ArrayList<>();
-        Collection<Defense> redDefenses = new ArrayList<>();
 
         Collection<Piece> blackPieces = new ArrayList<>();
         Collection<Move> blackLegalMoves = new ArrayList<>();
         int blackMobilityValue = 0;
-        Collection<Attack> blackAttacks = new ArrayList<>();
-        Collection<Defense> blackDefenses = new ArrayList<>();
 
         for (Point point : points) {
             if (point.isEmpty()) continue;
@@ -134,22 +140,22 @@ public class Board {
 
             if (piece.getAlliance().isRed()) {
                 redPieces.add(piece);
-                Collection<Move> moves = piece.getLegalMoves(this, redAttacks, redDefenses);
+                Collection<Move> moves = piece.getLegalMoves(this, relations);
                 redLegalMoves.addAll(moves);
                 redMobilityValue += piece.getPieceType().getMobilityValue() * moves.size();
             } else {
                 blackPieces.add(piece);
-                Collection<Move> moves = piece.getLegalMoves(this, blackAttacks, blackDefenses);
+                Collection<Move> moves = piece.getLegalMoves(this, relations);
                 blackLegalMoves.addAll(moves);
                 blackMobilityValue += piece.getPieceType().getMobilityValue() * moves.size();
             }
         }
 
         Player redPlayer = new Player(Alliance.RED, redPieces, redLegalMoves, blackLegalMoves,
-                redMobilityValue, redAttacks, redDefenses);
+                redMobilityValue);
         Player blackPlayer = new Player(Alliance.BLACK, blackPieces, blackLegalMoves, redLegalMoves,
-                blackMobilityValue, blackAttacks, blackDefenses);
-        return new PlayerInfo(redPlayer, blackPlayer);
+                blackMobilityValue);
+        return new PlayerInfo(redPlayer, blackPlayer, relations, zobristKey);
     }
 
     /**
@@ -159,18 +165,15 @@ public class Board {
         Piece movedPiece = move.getMovedPiece();
         Piece destPiece = movedPiece.movePiece(move);
         Piece capturedPiece = move.isCapture() ? move.getCapturedPiece().get() : null;
+        Relations relations = new Relations();
 
         Collection<Piece> redPieces = new ArrayList<>();
         Collection<Move> redLegalMoves = new ArrayList<>();
         int redMobilityValue = 0;
-        Collection<Attack> redAttacks = new ArrayList<>();
-        Collection<Defense> redDefenses = new ArrayList<>();
 
         Collection<Piece> blackPieces = new ArrayList<>();
         Collection<Move> blackLegalMoves = new ArrayList<>();
         int blackMobilityValue = 0;
-        Collection<Attack> blackAttacks = new ArrayList<>();
-        Collection<Defense> blackDefenses = new ArrayList<>();
 
         Player redPlayer = getPlayer(Alliance.RED);
         Player blackPlayer = getPlayer(Alliance.BLACK);
@@ -178,49 +181,60 @@ public class Board {
         for (Piece piece : redPlayer.getActivePieces()) {
             if (piece.equals(movedPiece) || piece.equals(capturedPiece)) continue;
             redPieces.add(piece);
-            Collection<Move> moves = piece.getLegalMoves(this, redAttacks, redDefenses);
+            Collection<Move> moves = piece.getLegalMoves(this, relations);
             redLegalMoves.addAll(moves);
             redMobilityValue += piece.getPieceType().getMobilityValue() * moves.size();
         }
         for (Piece piece : blackPlayer.getActivePieces()) {
             if (piece.equals(movedPiece) || piece.equals(capturedPiece)) continue;
             blackPieces.add(piece);
-            Collection<Move> moves = piece.getLegalMoves(this, blackAttacks, blackDefenses);
+            Collection<Move> moves = piece.getLegalMoves(this, relations);
             blackLegalMoves.addAll(moves);
             blackMobilityValue += piece.getPieceType().getMobilityValue() * moves.size();
         }
         if (destPiece.getAlliance().isRed()) {
             redPieces.add(destPiece);
-            Collection<Move> moves = destPiece.getLegalMoves(this, redAttacks, redDefenses);
+            Collection<Move> moves = destPiece.getLegalMoves(this, relations);
             redLegalMoves.addAll(moves);
             redMobilityValue += destPiece.getPieceType().getMobilityValue() * moves.size();
         } else {
             blackPieces.add(destPiece);
-            Collection<Move> moves = destPiece.getLegalMoves(this, blackAttacks, blackDefenses);
+            Collection<Move> moves = destPiece.getLegalMoves(this, relations);
             blackLegalMoves.addAll(moves);
             blackMobilityValue += destPiece.getPieceType().getMobilityValue() * moves.size();
         }
 
         redPlayer = new Player(Alliance.RED, redPieces, redLegalMoves, blackLegalMoves,
-                redMobilityValue, redAttacks, redDefenses);
+                redMobilityValue);
         blackPlayer = new Player(Alliance.BLACK, blackPieces, blackLegalMoves, redLegalMoves,
-                blackMobilityValue, blackAttacks, blackDefenses);
-        return new PlayerInfo(redPlayer, blackPlayer);
+                blackMobilityValue);
+        return new PlayerInfo(redPlayer, blackPlayer, relations, zobristKey);
     }
 
     /**
-     * Makes the given move on this board. Player information and Zobrist key are updated.
+     * Makes the given move on this board. Player information, material and Zobrist key are updated.
      * @param move The move to be made.
      */
     public void makeMove(Move move) {
         Piece movedPiece = move.getMovedPiece();
+        Piece destPiece = movedPiece.movePiece(move);
         Coordinate srcPosition = movedPiece.getPosition();
         Coordinate destPosition = move.getDestPosition();
 
         Point srcPoint = points.get(BoardUtil.positionToIndex(srcPosition));
         srcPoint.removePiece();
         Point destPoint = points.get(BoardUtil.positionToIndex(destPosition));
-        destPoint.setPiece(movedPiece.movePiece(move));
+        destPoint.setPiece(destPiece);
+
+        Material material = getMaterial(movedPiece.getAlliance());
+        material.removePiece(movedPiece);
+        material.addPiece(destPiece);
+        move.getCapturedPiece().ifPresent(p -> getMaterial(p.getAlliance()).removePiece(p));
+        for (PieceListener listener : pieceListeners) {
+            listener.pieceRemoved(movedPiece);
+            listener.pieceAdded(destPiece);
+            move.getCapturedPiece().ifPresent(listener::pieceRemoved);
+        }
 
         playerInfoHistory.add(playerInfo);
         playerInfo = updatePlayerInfo(move);
@@ -229,7 +243,7 @@ public class Board {
     }
 
     /**
-     * Undoes the given move on this board. Player information and Zobrist key are updated.
+     * Undoes the given move on this board. Player information, material and Zobrist key are updated.
      * @param move The move to be undone.
      */
     public void unmakeMove(Move move) {
@@ -241,37 +255,80 @@ public class Board {
         Point srcPoint = points.get(BoardUtil.positionToIndex(srcPosition));
         srcPoint.setPiece(movedPiece);
         Point destPoint = points.get(BoardUtil.positionToIndex(destPosition));
+        Piece destPiece = destPoint.getPiece().get();
         destPoint.removePiece();
         capturedPiece.ifPresent(destPoint::setPiece);
 
+        Material material = getMaterial(movedPiece.getAlliance());
+        material.removePiece(destPiece);
+        material.addPiece(movedPiece);
+        capturedPiece.ifPresent(p -> getMaterial(p.getAlliance()).addPiece(p));
+        for (PieceListener listener : pieceListeners) {
+            listener.pieceRemoved(destPiece);
+            listener.pieceAdded(movedPiece);
+            capturedPiece.ifPresent(listener::pieceAdded);
+        }
+
         playerInfo = playerInfoHistory.isEmpty() ? generatePlayerInfo()
                 : playerInfoHistory.remove(playerInfoHistory.size() - 1);
         changeTurn();
         zobristKey = ZOBRIST.updateKey(zobristKey, move);
     }
 
+    /**
+     * Adds a listener to be notified of pieces added to and removed from this board by moves.
+     * The listener is first notified of every piece currently on this board.
+     * @param listener The listener to add.
+     */
+    public void addPieceListener(PieceListener listener) {
+        for (Point point : points) {
+            point.getPiece().ifPresent(listener::pieceAdded);
+        }
+        pieceListeners.add(listener);
+    }
+
+    /**
+     * Removes the given listener from this board.
+     * @param listener The listener to remove.
+     */
+    public void removePieceListener(PieceListener listener) {
+        pieceListeners.remove(listener);
+    }
+
     /**
      * Switches the current turn on the board. Zobrist key is updated.
      */
     public void changeTurn() {
         currTurn = currTurn.opposite();
-        zobristKey ^= ZOBRIST.side;
+        zobristKey ^= ZOBRIST.getSideKey();
     }
 
     /**
      * Returns a move, if any, corresponding to the given source and destination positions on this board.
+     * The move is built directly from the points and checked against the rules of the moved piece only,
+     * and is equal to the corresponding move among the current player's legal moves.
      * @param srcPosition The source position.
      * @param destPosition The destination position.
      * @return A move, if any, corresponding to the given source and destination positions on this board.
      */
     public Optional<Move> getMove(Coordinate srcPosition, Coordinate destPosition) {
-        for (Move move : getCurrPlayer().getLegalMoves()) {
-            if (move.getMovedPiece().getPosition().equals(srcPosition)
-                    && move.getDestPosition().equals(destPosition)) {
-                return Optional.of(move);
-            }
+        if (!BoardUtil.isWithinBounds(srcPosition) || !BoardUtil.isWithinBounds(destPosition)
+                || srcPosition.equals(destPosition)) {
+            return Optional.empty();
+        }
+        Optional<Piece> movedPiece = getPoint(srcPosition).getPiece();
+        if (!movedPiece.isPresent() || !movedPiece.get().getAlliance().equals(currTurn)) {
+            return Optional.empty();
+        }
+        Optional<Piece> destPiece = getPoint(destPosition).getPiece();
+        if (destPiece.isPresent() && destPiece.get().getAlliance().equals(currTurn)) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        if (!movedPiece.get().canMoveTo(this, destPosition)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new Move(playerInfo.moveKey, movedPiece.get(), destPosition, destPiece.orElse(null)));
     }
 
     /**
@@ -282,6 +339,24 @@ public class Board {
         return !getOppPlayer().isInCheck();
     }
 
+    /**
+     * Returns the legal moves of the current player that do not leave its general in check.
+     * @return The legal moves of the current player that do not leave its general in check.
+     */
+    public List<Move> getAllowedMoves() {
+        List<Move> allowedMoves = new ArrayList<>();
+
+        for (Move move : getCurrPlayer().getLegalMoves()) {
+            makeMove(move);
+            if (isStateAllowed()) {
+                allowedMoves.add(move);
+            }
+            unmakeMove(move);
+        }
+
+        return allowedMoves;
+    }
+
     /**
      * Checks if the current player has been checkmated.
      * @return true if the current player has been checkmated, false otherwise.
@@ -419,6 +494,68 @@ public class Board {
         return points.get(BoardUtil.positionToIndex(position));
     }
 
+    /**
+     * Returns the material of the player with the given alliance.
+     */
+    private Material getMaterial(Alliance alliance) {
+        return alliance.isRed() ? redMaterial : blackMaterial;
+    }
+
+    /**
+     * Returns the sum of midgame values of all pieces of the player with the given alliance.
+     * @param alliance The alliance of the player.
+     * @return The sum of midgame values of all pieces of the player with the given alliance.
+     */
+    public int getMidgameValue(Alliance alliance) {
+        return getMaterial(alliance).midgameValue;
+    }
+
+    /**
+     * Returns the sum of endgame values of all pieces of the player with the given alliance.
+     * @param alliance The alliance of the player.
+     * @return The sum of endgame values of all pieces of the player with the given alliance.
+     */
+    public int getEndgameValue(Alliance alliance) {
+        return getMaterial(alliance).endgameValue;
+    }
+
+    /**
+     * Returns the sum of simple units of all pieces of the player with the given alliance.
+     * @param alliance The alliance of the player.
+     * @return The sum of simple units of all pieces of the player with the given alliance.
+     */
+    public int getSimpleUnits(Alliance alliance) {
+        return getMaterial(alliance).simpleUnits;
+    }
+
+    /**
+     * Returns the sum of value units of all pieces of the player with the given alliance.
+     * @param alliance The alliance of the player.
+     * @return The sum of value units of all pieces of the player with the given alliance.
+     */
+    public int getValueUnits(Alliance alliance) {
+        return getMaterial(alliance).valueUnits;
+    }
+
+    /**
+     * Returns the sum of attack units of all pieces of the player with the given alliance that crossed the river.
+     * @param alliance The alliance of the player.
+     * @return The sum of attack units of all pieces of the player with the given alliance that crossed the river.
+     */
+    public int getAttackUnits(Alliance alliance) {
+        return getMaterial(alliance).attackUnits;
+    }
+
+    /**
+     * Returns the number of pieces of the given type of the player with the given alliance.
+     * @param alliance The alliance of the player.
+     * @param pieceType The type of piece to count.
+     * @return The number of pieces of the given type of the player with the given alliance.
+     */
+    public int getPieceCount(Alliance alliance, PieceType pieceType) {
+        return getMaterial(alliance).pieceCounts[pieceType.ordinal()];
+    }
+
     public long getZobristKey() {
         return zobristKey;
     }
@@ -427,6 +564,14 @@ public class Board {
         return alliance.isRed() ? playerInfo.redPlayer : playerInfo.blackPlayer;
     }
 
+    /**
+     * Returns the attacks and defenses of both players on this board.
+     * @return The attacks and defenses of both players on this board.
+     */
+    public Relations getRelations() {
+        return playerInfo.relations;
+    }
+
     public Player getCurrPlayer() {
         return currTurn.isRed() ? getPlayer(Alliance.RED) : getPlayer(Alliance.BLACK);
     }
@@ -467,79 +612,70 @@ public class Board {
 
         private Player redPlayer;
         private Player blackPlayer;
+        private Relations relations;
+        private long moveKey; // Zobrist key of the board when the legal moves were generated, kept in those moves
 
-        private PlayerInfo(Player redPlayer, Player blackPlayer) {
+        private PlayerInfo(Player redPlayer, Player blackPlayer, Relations relations, long moveKey) {
             this.redPlayer = redPlayer;
             this.blackPlayer = blackPlayer;
+            this.relations = relations;
+            this.moveKey = moveKey;
         }
     }
 
     /**
-     * Helper class for calculating and updating Zobrist keys.
+     * Represents a listener of the pieces on a board, for state that is updated incrementally with moves.
+     * Undoing a move notifies the listener of the reverse changes.
      */
-    private static class Zobrist {
-
-        private final long[][][] pieces;
-        private final long side;
-
-        private Zobrist() {
-            Random rand = new Random();
-            pieces = new long[7][2][90];
-            for (int i = 0; i < 7; i++) {
-                for (int j = 0; j < 2; j++) {
-                    for (int k = 0; k < 90; k++) {
-                        pieces[i][j][k] = rand.nextLong();
-                    }
-                }
-            }
-            side = rand.nextLong();
-        }
+    public interface PieceListener {
 
         /**
-         * Returns the Zobrist hash of the given piece.
+         * Called when the given piece is placed on the board.
          */
-        private long getPieceHash(Piece piece) {
-            int pieceIndex = piece.getPieceType().ordinal();
-            int sideIndex = piece.getAlliance().isRed() ? 0 : 1;
-            int posIndex = BoardUtil.positionToIndex(piece.getPosition());
-
-            return pieces[pieceIndex][sideIndex][posIndex];
-        }
+        void pieceAdded(Piece piece);
 
         /**
-         * Returns the Zobrist key given a list of points and current turn.
+         * Called when the given piece is taken off the board.
          */
-        private long getKey(List<Point> points, Alliance currTurn) {
-            long key = 0;
+        void pieceRemoved(Piece piece);
+    }
 
-            for (Point point : points) {
-                if (!point.isEmpty()) {
-                    key ^= getPieceHash(point.getPiece().get());
-                }
-            }
-            if (!currTurn.isRed()) {
-                key ^= side;
-            }
+    /**
+     * Represents the running material totals of a player, updated as pieces are added and removed.
+     */
+    private static class Material {
+
+        private int midgameValue;
+        private int endgameValue;
+        private int simpleUnits;
+        private int valueUnits;
+        private int attackUnits;
+        private final int[] pieceCounts = new int[PieceType.values().length];
 
-            return key;
+        /**
+         * Adds the given piece to the totals.
+         */
+        private void addPiece(Piece piece) {
+            update(piece, 1);
         }
 
         /**
-         * Returns the new Zobrist key given the old key and the move made.
+         * Removes the given piece from the totals.
          */
-        private long updateKey(long key, Move move) {
-            Piece movedPiece = move.getMovedPiece();
-            Piece destPiece = movedPiece.movePiece(move);
-            Optional<Piece> capturedPiece = move.getCapturedPiece();
-
-            long movedPieceHash = getPieceHash(movedPiece);
-            long destPieceHash = getPieceHash(destPiece);
-            key ^= movedPieceHash ^ destPieceHash;
-            if (capturedPiece.isPresent()) {
-                key ^= getPieceHash(capturedPiece.get());
-            }
+        private void removePiece(Piece piece) {
+            update(piece, -1);
+        }
 
-            return key;
+        private void update(Piece piece, int sign) {
+            PieceType pieceType = piece.getPieceType();
+            midgameValue += sign * piece.getMidgameValue();
+            endgameValue += sign * piece.getEndgameValue();
+            simpleUnits += sign * pieceType.getSimpleUnits();
+            valueUnits += sign * pieceType.getValueUnits();
+            if (piece.crossedRiver()) {
+                attackUnits += sign * pieceType.getAttackUnits();
+            }
+            pieceCounts[pieceType.ordinal()] += sign;
         }
     }
 
@@ -0,0 +1,205 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Advisor;
+import com.chess.engine.pieces.Cannon;
+import com.chess.engine.pieces.Chariot;
+import com.chess.engine.pieces.Elephant;
+import com.chess.engine.pieces.General;
+import com.chess.engine.pieces.Horse;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Soldier;
+
+import java.util.Optional;
+
+import static com.chess.engine.pieces.Piece.*;
+
+/**
+ * A helper class for converting between boards and Xiangqi FEN strings,
+ * e.g. "rnbakabnr/9/1c5c1/p1p1p1p1p/9/9/P1P1P1P1P/1C5C1/9/RNBAKABNR w".
+ * Ranks are listed from BLACK's side; RED pieces are upper case and BLACK pieces lower case,
+ * using R (chariot), N or H (horse), B or E (elephant), A (advisor), K (general), C (cannon) and P (soldier).
+ * The side to move is "w" or "r" for RED and "b" for BLACK. Any fields after it are ignored.
+ * Pieces must stand on points they can reach, with at most 5 soldiers and 2 of each other piece per player.
+ */
+public class FenUtil {
+
+    public static final String START_FEN = "rnbakabnr/9/1c5c1/p1p1p1p1p/9/9/P1P1P1P1P/1C5C1/9/RNBAKABNR w";
+    private static final int MAX_SOLDIERS = 5;
+    private static final int MAX_OTHER_PIECES = 2;
+
+    /**
+     * Returns a board built directly from the given FEN string.
+     * @param fen The FEN string.
+     * @return A board built from the given FEN string.
+     * @throws IllegalArgumentException If the given string is not a valid position.
+     */
+    public static Board fenToBoard(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != Board.NUM_ROWS) {
+            throw new IllegalArgumentException("Invalid number of ranks in " + fen);
+        }
+
+        Board.Builder builder = new Board.Builder();
+        int[][] pieceCounts = new int[2][PieceType.values().length];
+        for (int row = 0; row < Board.NUM_ROWS; row++) {
+            int col = 0;
+            for (char c : ranks[row].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    col += c - '0';
+                    continue;
+                }
+                if (col >= Board.NUM_COLS) {
+                    throw new IllegalArgumentException("Invalid rank " + ranks[row] + " in " + fen);
+                }
+                Alliance alliance = Character.isUpperCase(c) ? Alliance.RED : Alliance.BLACK;
+                Piece piece = charToPiece(Character.toUpperCase(c), new Coordinate(row, col), alliance)
+                        .orElseThrow(() -> new IllegalArgumentException("Invalid piece " + c + " in " + fen));
+                if (!isValidPosition(piece)) {
+                    throw new IllegalArgumentException("Invalid position of piece " + c + " in " + fen);
+                }
+                int pieceCount = ++pieceCounts[alliance.isRed() ? 0 : 1][piece.getPieceType().ordinal()];
+                if (piece.getPieceType() != PieceType.GENERAL && pieceCount > getMaxCount(piece.getPieceType())) {
+                    throw new IllegalArgumentException("Too many pieces " + c + " in " + fen);
+                }
+                builder.putPiece(piece);
+                col++;
+            }
+            if (col != Board.NUM_COLS) {
+                throw new IllegalArgumentException("Invalid rank " + ranks[row] + " in " + fen);
+            }
+        }
+        int general = PieceType.GENERAL.ordinal();
+        if (pieceCounts[0][general] != 1 || pieceCounts[1][general] != 1) {
+            throw new IllegalArgumentException("Each player must have one general in " + fen);
+        }
+
+        Alliance currTurn = Alliance.RED;
+        if (fields.length > 1) {
+            switch (fields[1]) {
+                case "w":
+                case "r":
+                    break;
+                case "b":
+                    currTurn = Alliance.BLACK;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid side to move in " + fen);
+            }
+        }
+        builder.setCurrTurn(currTurn);
+
+        return builder.build();
+    }
+
+    /**
+     * Returns the FEN string of the given board, with only the placement and side to move.
+     * @param board The board.
+     * @return The FEN string of the given board.
+     */
+    public static String boardToFen(Board board) {
+        StringBuilder sb = new StringBuilder();
+
+        for (int row = 0; row < Board.NUM_ROWS; row++) {
+            if (row > 0) {
+                sb.append('/');
+            }
+            int emptyCount = 0;
+            for (int col = 0; col < Board.NUM_COLS; col++) {
+                Optional<Piece> piece = board.getPoint(new Coordinate(row, col)).getPiece();
+                if (!piece.isPresent()) {
+                    emptyCount++;
+                    continue;
+                }
+                if (emptyCount > 0) {
+                    sb.append(emptyCount);
+                    emptyCount = 0;
+                }
+                char c = pieceTypeToChar(piece.get().getPieceType());
+                sb.append(piece.get().getAlliance().isRed() ? c : Character.toLowerCase(c));
+            }
+            if (emptyCount > 0) {
+                sb.append(emptyCount);
+            }
+        }
+        sb.append(board.getCurrPlayer().getAlliance().isRed() ? " w" : " b");
+
+        return sb.toString();
+    }
+
+    /**
+     * Returns a piece, if any, corresponding to the given upper case FEN character.
+     */
+    private static Optional<Piece> charToPiece(char c, Coordinate position, Alliance alliance) {
+        switch (c) {
+            case 'R':
+                return Optional.of(new Chariot(position, alliance));
+            case 'N':
+            case 'H':
+                return Optional.of(new Horse(position, alliance));
+            case 'B':
+            case 'E':
+                return Optional.of(new Elephant(position, alliance));
+            case 'A':
+                return Optional.of(new Advisor(position, alliance));
+            case 'K':
+                return Optional.of(new General(position, alliance));
+            case 'C':
+                return Optional.of(new Cannon(position, alliance));
+            case 'P':
+                return Optional.of(new Soldier(position, alliance));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Checks if the given piece stands on a point it can reach.
+     */
+    private static boolean isValidPosition(Piece piece) {
+        Coordinate position = piece.getPosition();
+        Alliance alliance = piece.getAlliance();
+        switch (piece.getPieceType()) {
+            case GENERAL:
+                return General.isValidPosition(position, alliance);
+            case ADVISOR:
+                return Advisor.isValidPosition(position, alliance);
+            case ELEPHANT:
+                return Elephant.isValidPosition(position, alliance);
+            case SOLDIER:
+                return Soldier.isValidPosition(position, alliance);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Returns the maximum number of pieces of the given type of a player, other than the general.
+     */
+    private static int getMaxCount(PieceType pieceType) {
+        return pieceType == PieceType.SOLDIER ? MAX_SOLDIERS : MAX_OTHER_PIECES;
+    }
+
+    /**
+     * Returns the upper case FEN character of the given piece type.
+     */
+    private static char pieceTypeToChar(PieceType pieceType) {
+        switch (pieceType) {
+            case CHARIOT:
+                return 'R';
+            case HORSE:
+                return 'N';
+            case ELEPHANT:
+                return 'B';
+            case ADVISOR:
+                return 'A';
+            case GENERAL:
+                return 'K';
+            case CANNON:
+                return 'C';
+            default:
+                return 'P';
+        }
+    }
+}
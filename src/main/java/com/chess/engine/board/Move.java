@@ -52,6 +52,49 @@ public class Move {
         return board.getMove(srcPosition, destPosition);
     }
 
+    /**
+     * Returns a move, if any, corresponding to the given ICCS notation, e.g. "h2e2".
+     * Files run from 'a' to 'i' and ranks from 0 to 9, both from RED's bottom left.
+     * @param board The board to make a move on.
+     * @param str The ICCS notation.
+     * @return A move, if any, corresponding to the given ICCS notation.
+     */
+    public static Optional<Move> iccsToMove(Board board, String str) {
+        if (str.length() != 4) {
+            return Optional.empty();
+        }
+
+        Coordinate srcPosition = iccsToPosition(str.charAt(0), str.charAt(1));
+        Coordinate destPosition = iccsToPosition(str.charAt(2), str.charAt(3));
+        if (!BoardUtil.isWithinBounds(srcPosition) || !BoardUtil.isWithinBounds(destPosition)) {
+            return Optional.empty();
+        }
+
+        return board.getMove(srcPosition, destPosition);
+    }
+
+    /**
+     * Returns the ICCS notation of this move, e.g. "h2e2".
+     * @return The ICCS notation of this move.
+     */
+    public String toIccs() {
+        return positionToIccs(movedPiece.getPosition()) + positionToIccs(destPosition);
+    }
+
+    /**
+     * Returns the position corresponding to the given ICCS file and rank characters.
+     */
+    private static Coordinate iccsToPosition(char file, char rank) {
+        return new Coordinate(Board.NUM_ROWS - 1 - (rank - '0'), file - 'a');
+    }
+
+    /**
+     * Returns the ICCS notation of the given position.
+     */
+    private static String positionToIccs(Coordinate position) {
+        return "" + (char) ('a' + position.getCol()) + (Board.NUM_ROWS - 1 - position.getRow());
+    }
+
     /**
      * Returns a string representation of a piece with the given type and alliance.
      */
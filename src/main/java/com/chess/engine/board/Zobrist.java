@@ -0,0 +1,141 @@
+package com.chess.engine.board;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Represents a Zobrist hashing of boards: the key of a board is the XOR of the keys of its pieces on their points,
+ * and of the side key if BLACK is to move.
+ * The keys are generated by SplitMix64 from a seed, in the order of piece type, alliance (RED first) and point index,
+ * followed by the side key. Boards are hashed with the default seed, so that their keys are the same in every run
+ * and on every machine and can be persisted, e.g. in opening books.
+ */
+public class Zobrist {
+
+    public static final long DEFAULT_SEED = 0x5851434845535321L; // "XQCHESS!"
+    private static final int NUM_POINTS = Board.NUM_ROWS * Board.NUM_COLS;
+    private static final Zobrist DEFAULT = new Zobrist(DEFAULT_SEED);
+
+    private final long[] pieceKeys; // indexed by (piece type * 2 + alliance) * NUM_POINTS + point index
+    private final long sideKey;
+
+    /**
+     * Creates a hashing with keys generated from the given seed.
+     * @param seed The seed of the keys.
+     */
+    public Zobrist(long seed) {
+        long state = seed;
+        pieceKeys = new long[PieceType.values().length * 2 * NUM_POINTS];
+        for (int i = 0; i < pieceKeys.length; i++) {
+            state += 0x9E3779B97F4A7C15L;
+            pieceKeys[i] = mix(state);
+        }
+        state += 0x9E3779B97F4A7C15L;
+        sideKey = mix(state);
+    }
+
+    /**
+     * Returns the hashing used by boards.
+     * @return The hashing used by boards.
+     */
+    public static Zobrist getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the output of SplitMix64 for the given state.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the key of a piece of the given type and alliance on the point with the given index.
+     * @param pieceType The type of the piece.
+     * @param alliance The alliance of the piece.
+     * @param index The index of the point (row * 9 + column).
+     * @return The key of the given piece on the given point.
+     */
+    public long getPieceKey(PieceType pieceType, Alliance alliance, int index) {
+        return pieceKeys[(pieceType.ordinal() * 2 + (alliance.isRed() ? 0 : 1)) * NUM_POINTS + index];
+    }
+
+    /**
+     * Returns the key of the given piece on its point.
+     * @param piece The piece.
+     * @return The key of the given piece on its point.
+     */
+    public long getPieceKey(Piece piece) {
+        return getPieceKey(piece.getPieceType(), piece.getAlliance(), BoardUtil.positionToIndex(piece.getPosition()));
+    }
+
+    /**
+     * Returns the key XORed in when BLACK is to move.
+     * @return The side key.
+     */
+    public long getSideKey() {
+        return sideKey;
+    }
+
+    /**
+     * Returns the key of the given board, computed from scratch.
+     * @param board The board.
+     * @return The key of the given board.
+     */
+    public long getKey(Board board) {
+        long key = 0;
+
+        for (int index = 0; index < NUM_POINTS; index++) {
+            Optional<Piece> piece = board.getPoint(new Coordinate(index / Board.NUM_COLS, index % Board.NUM_COLS))
+                    .getPiece();
+            if (piece.isPresent()) {
+                key ^= getPieceKey(piece.get());
+            }
+        }
+        if (!board.getCurrPlayer().getAlliance().isRed()) {
+            key ^= sideKey;
+        }
+
+        return key;
+    }
+
+    /**
+     * Returns the key given a list of points and current turn.
+     */
+    long getKey(List<Point> points, Alliance currTurn) {
+        long key = 0;
+
+        for (Point point : points) {
+            if (!point.isEmpty()) {
+                key ^= getPieceKey(point.getPiece().get());
+            }
+        }
+        if (!currTurn.isRed()) {
+            key ^= sideKey;
+        }
+
+        return key;
+    }
+
+    /**
+     * Returns the new key given the old key and the move made, excluding the change of turn.
+     */
+    long updateKey(long key, Move move) {
+        Piece movedPiece = move.getMovedPiece();
+        Piece destPiece = movedPiece.movePiece(move);
+        Optional<Piece> capturedPiece = move.getCapturedPiece();
+
+        key ^= getPieceKey(movedPiece) ^ getPieceKey(destPiece);
+        if (capturedPiece.isPresent()) {
+            key ^= getPieceKey(capturedPiece.get());
+        }
+
+        return key;
+    }
+}
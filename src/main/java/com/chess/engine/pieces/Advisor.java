@@ -52,10 +52,15 @@ public class Advisor extends Piece {
     }
 
     @Override
-    public Collection<Move> getLegalMoves(Board board, Collection<Attack> attacks, Collection<Defense> defenses) {
+    public boolean canMoveTo(Board board, Coordinate destPosition) {
+        return Math.abs(destPosition.getRow() - position.getRow()) == 1
+                && Math.abs(destPosition.getCol() - position.getCol()) == 1
+                && isValidPosition(destPosition);
+    }
+
+    @Override
+    public Collection<Move> getLegalMoves(Board board, Relations relations) {
         List<Move> legalMoves = new ArrayList<>();
-        List<Piece> attackedPieces = new ArrayList<>();
-        List<Piece> defendedPieces = new ArrayList<>();
 
         for (Coordinate vector : MOVE_VECTORS) {
             Coordinate destPosition = position.add(vector);
@@ -64,18 +69,13 @@ public class Advisor extends Piece {
                 destPiece.ifPresentOrElse(p -> {
                     if (!p.alliance.equals(this.alliance)) {
                         legalMoves.add(new Move(board.getZobristKey(), this, destPosition, p));
-                        attackedPieces.add(p);
+                        relations.addAttack(this, p);
                     } else {
-                        defendedPieces.add(p);
+                        relations.addDefense(this, p);
                     }
                 }, () -> legalMoves.add(new Move(board.getZobristKey(), this, destPosition)));
             }
         }
-        Attack attack = new Attack(this, attackedPieces);
-        Defense defense = new Defense(this, defendedPieces);
-
-        attacks.add(attack);
-        defenses.add(defense);
         return Collections.unmodifiableList(legalMoves);
     }
 
@@ -94,6 +94,16 @@ public class Advisor extends Piece {
      * Checks if the given position is valid for this advisor.
      */
     private boolean isValidPosition(Coordinate positionToTest) {
+        return isValidPosition(positionToTest, alliance);
+    }
+
+    /**
+     * Checks if the given position is valid for an advisor of the given alliance.
+     * @param positionToTest The position to check.
+     * @param alliance The alliance of the advisor.
+     * @return true if the given position is valid for an advisor of the given alliance, false otherwise.
+     */
+    public static boolean isValidPosition(Coordinate positionToTest, Alliance alliance) {
         if (alliance.isRed()) {
             return VALID_POSITIONS_RED.contains(positionToTest);
         } else {
@@ -50,10 +50,17 @@ public class Cannon extends Piece {
     }
 
     @Override
-    public Collection<Move> getLegalMoves(Board board, Collection<Attack> attacks, Collection<Defense> defenses) {
+    public boolean canMoveTo(Board board, Coordinate destPosition) {
+        if (!isInLine(destPosition)) {
+            return false;
+        }
+        int numScreens = board.getPoint(destPosition).isEmpty() ? 0 : 1;
+        return countPiecesBetween(board, destPosition) == numScreens;
+    }
+
+    @Override
+    public Collection<Move> getLegalMoves(Board board, Relations relations) {
         List<Move> legalMoves = new ArrayList<>();
-        List<Piece> attackedPieces = new ArrayList<>();
-        List<Piece> defendedPieces = new ArrayList<>();
 
         for (Coordinate vector : MOVE_VECTORS) {
             Coordinate destPosition = position.add(vector);
@@ -68,20 +75,15 @@ public class Cannon extends Piece {
                 } else if (destPiece.isPresent()) { // after first piece
                     if (!destPiece.get().alliance.equals(this.alliance)) {
                         legalMoves.add(new Move(board.getZobristKey(), this, destPosition, destPiece.get()));
-                        attackedPieces.add(destPiece.get());
+                        relations.addAttack(this, destPiece.get());
                     } else {
-                        defendedPieces.add(destPiece.get());
+                        relations.addDefense(this, destPiece.get());
                     }
                     break;
                 }
                 destPosition = destPosition.add(vector);
             }
         }
-        Attack attack = new Attack(this, attackedPieces);
-        Defense defense = new Defense(this, defendedPieces);
-
-        attacks.add(attack);
-        defenses.add(defense);
         return Collections.unmodifiableList(legalMoves);
     }
 
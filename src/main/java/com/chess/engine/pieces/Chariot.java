@@ -47,10 +47,13 @@ public class Chariot extends Piece {
     }
 
     @Override
-    public Collection<Move> getLegalMoves(Board board, Collection<Attack> attacks, Collection<Defense> defenses) {
+    public boolean canMoveTo(Board board, Coordinate destPosition) {
+        return isInLine(destPosition) && countPiecesBetween(board, destPosition) == 0;
+    }
+
+    @Override
+    public Collection<Move> getLegalMoves(Board board, Relations relations) {
         List<Move> legalMoves = new ArrayList<>();
-        List<Piece> attackedPieces = new ArrayList<>();
-        List<Piece> defendedPieces = new ArrayList<>();
 
         for (Coordinate vector : MOVE_VECTORS) {
             Coordinate destPosition = position.add(vector);
@@ -60,9 +63,9 @@ public class Chariot extends Piece {
                 if (destPiece.isPresent()) {
                     if (!destPiece.get().alliance.equals(this.alliance)) {
                         legalMoves.add(new Move(board.getZobristKey(), this, destPosition, destPiece.get()));
-                        attackedPieces.add(destPiece.get());
+                        relations.addAttack(this, destPiece.get());
                     } else {
-                        defendedPieces.add(destPiece.get());
+                        relations.addDefense(this, destPiece.get());
                     }
                     break;
                 } else {
@@ -71,11 +74,6 @@ public class Chariot extends Piece {
                 destPosition = destPosition.add(vector);
             }
         }
-        Attack attack = new Attack(this, attackedPieces);
-        Defense defense = new Defense(this, defendedPieces);
-
-        attacks.add(attack);
-        defenses.add(defense);
         return Collections.unmodifiableList(legalMoves);
     }
 
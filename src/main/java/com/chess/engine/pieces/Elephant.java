@@ -57,10 +57,18 @@ public class Elephant extends Piece {
     }
 
     @Override
-    public Collection<Move> getLegalMoves(Board board, Collection<Attack> attacks, Collection<Defense> defenses) {
+    public boolean canMoveTo(Board board, Coordinate destPosition) {
+        int rowOffset = destPosition.getRow() - position.getRow();
+        int colOffset = destPosition.getCol() - position.getCol();
+        if (Math.abs(rowOffset) != 2 || Math.abs(colOffset) != 2 || !isValidPosition(destPosition)) {
+            return false;
+        }
+        return board.getPoint(position.add(new Coordinate(rowOffset / 2, colOffset / 2))).isEmpty();
+    }
+
+    @Override
+    public Collection<Move> getLegalMoves(Board board, Relations relations) {
         List<Move> legalMoves = new ArrayList<>();
-        List<Piece> attackedPieces = new ArrayList<>();
-        List<Piece> defendedPieces = new ArrayList<>();
 
         for (Coordinate vector : MOVE_VECTORS) {
             Coordinate firstPosition = position.add(vector);
@@ -73,18 +81,13 @@ public class Elephant extends Piece {
                 destPiece.ifPresentOrElse(p -> {
                     if (!p.alliance.equals(this.alliance)) {
                         legalMoves.add(new Move(board.getZobristKey(), this, destPosition, p));
-                        attackedPieces.add(p);
+                        relations.addAttack(this, p);
                     } else {
-                        defendedPieces.add(p);
+                        relations.addDefense(this, p);
                     }
                 }, () -> legalMoves.add(new Move(board.getZobristKey(), this, destPosition)));
             }
         }
-        Attack attack = new Attack(this, attackedPieces);
-        Defense defense = new Defense(this, defendedPieces);
-
-        attacks.add(attack);
-        defenses.add(defense);
         return Collections.unmodifiableList(legalMoves);
     }
 
@@ -103,6 +106,16 @@ public class Elephant extends Piece {
      * Checks if the given position is valid for this elephant.
      */
     private boolean isValidPosition(Coordinate positionToTest) {
+        return isValidPosition(positionToTest, alliance);
+    }
+
+    /**
+     * Checks if the given position is valid for an elephant of the given alliance.
+     * @param positionToTest The position to check.
+     * @param alliance The alliance of the elephant.
+     * @return true if the given position is valid for an elephant of the given alliance, false otherwise.
+     */
+    public static boolean isValidPosition(Coordinate positionToTest, Alliance alliance) {
         if (alliance.isRed()) {
             return VALID_POSITIONS_RED.contains(positionToTest);
         } else {
@@ -59,10 +59,23 @@ public class General extends Piece {
     }
 
     @Override
-    public Collection<Move> getLegalMoves(Board board, Collection<Attack> attacks, Collection<Defense> defenses) {
+    public boolean canMoveTo(Board board, Coordinate destPosition) {
+        int rowOffset = destPosition.getRow() - position.getRow();
+        int colOffset = destPosition.getCol() - position.getCol();
+        if (Math.abs(rowOffset) + Math.abs(colOffset) == 1) {
+            return isValidPosition(destPosition);
+        }
+
+        // flying general move (only used for enforcing check)
+        return colOffset == 0 && Integer.signum(rowOffset) == alliance.getDirection()
+                && board.getPoint(destPosition).getPiece()
+                        .map(p -> p.getPieceType().equals(PieceType.GENERAL)).orElse(false)
+                && countPiecesBetween(board, destPosition) == 0;
+    }
+
+    @Override
+    public Collection<Move> getLegalMoves(Board board, Relations relations) {
         List<Move> legalMoves = new ArrayList<>();
-        List<Piece> attackedPieces = new ArrayList<>();
-        List<Piece> defendedPieces = new ArrayList<>();
 
         for (Coordinate vector : MOVE_VECTORS) {
             Coordinate destPosition = position.add(vector);
@@ -71,9 +84,9 @@ public class General extends Piece {
                 destPiece.ifPresentOrElse(p -> {
                     if (!p.alliance.equals(this.alliance)) {
                         legalMoves.add(new Move(board.getZobristKey(), this, destPosition, p));
-                        attackedPieces.add(p);
+                        relations.addAttack(this, p);
                     } else {
-                        defendedPieces.add(p);
+                        relations.addDefense(this, p);
                     }
                 }, () -> legalMoves.add(new Move(board.getZobristKey(), this, destPosition)));
             }
@@ -87,18 +100,13 @@ public class General extends Piece {
             if (piece.isPresent()) {
                 if (piece.get().getPieceType().equals(PieceType.GENERAL)) {
                     legalMoves.add(new Move(board.getZobristKey(), this, currPosition, piece.get()));
-                    attackedPieces.add(piece.get());
+                    relations.addAttack(this, piece.get());
                 }
                 break;
             }
             currPosition = currPosition.add(vector);
         }
 
-        Attack attack = new Attack(this, attackedPieces);
-        Defense defense = new Defense(this, defendedPieces);
-
-        attacks.add(attack);
-        defenses.add(defense);
         return Collections.unmodifiableList(legalMoves);
     }
 
@@ -117,6 +125,16 @@ public class General extends Piece {
      * Checks if the given position is valid for this general.
      */
     private boolean isValidPosition(Coordinate positionToTest) {
+        return isValidPosition(positionToTest, alliance);
+    }
+
+    /**
+     * Checks if the given position is valid for a general of the given alliance.
+     * @param positionToTest The position to check.
+     * @param alliance The alliance of the general.
+     * @return true if the given position is valid for a general of the given alliance, false otherwise.
+     */
+    public static boolean isValidPosition(Coordinate positionToTest, Alliance alliance) {
         int row = positionToTest.getRow();
         int col = positionToTest.getCol();
 
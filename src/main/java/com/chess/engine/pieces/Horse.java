@@ -55,10 +55,23 @@ public class Horse extends Piece {
     }
 
     @Override
-    public Collection<Move> getLegalMoves(Board board, Collection<Attack> attacks, Collection<Defense> defenses) {
+    public boolean canMoveTo(Board board, Coordinate destPosition) {
+        int rowOffset = destPosition.getRow() - position.getRow();
+        int colOffset = destPosition.getCol() - position.getCol();
+        int absRowOffset = Math.abs(rowOffset);
+        int absColOffset = Math.abs(colOffset);
+        if (!(absRowOffset == 2 && absColOffset == 1) && !(absRowOffset == 1 && absColOffset == 2)) {
+            return false;
+        }
+        Coordinate firstPosition = absRowOffset == 2
+                ? position.add(new Coordinate(rowOffset / 2, 0))
+                : position.add(new Coordinate(0, colOffset / 2));
+        return board.getPoint(firstPosition).isEmpty();
+    }
+
+    @Override
+    public Collection<Move> getLegalMoves(Board board, Relations relations) {
         List<Move> legalMoves = new ArrayList<>();
-        List<Piece> attackedPieces = new ArrayList<>();
-        List<Piece> defendedPieces = new ArrayList<>();
 
         for (int i = 0; i < FIRST_MOVE_VECTORS.size(); i++) {
             Coordinate firstPosition = position.add(FIRST_MOVE_VECTORS.get(i));
@@ -72,19 +85,14 @@ public class Horse extends Piece {
                     destPiece.ifPresentOrElse(p -> {
                         if (!p.alliance.equals(this.alliance)) {
                             legalMoves.add(new Move(board.getZobristKey(), this, destPosition, p));
-                            attackedPieces.add(p);
+                            relations.addAttack(this, p);
                         } else {
-                            defendedPieces.add(p);
+                            relations.addDefense(this, p);
                         }
                     }, () -> legalMoves.add(new Move(board.getZobristKey(), this, destPosition)));
                 }
             }
         }
-        Attack attack = new Attack(this, attackedPieces);
-        Defense defense = new Defense(this, defendedPieces);
-
-        attacks.add(attack);
-        defenses.add(defense);
         return Collections.unmodifiableList(legalMoves);
     }
 
@@ -2,11 +2,14 @@ package com.chess.engine.pieces;
 
 import com.chess.engine.Alliance;
 import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtil;
 import com.chess.engine.board.Coordinate;
 import com.chess.engine.board.Move;
 
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.Objects;
+import java.util.Scanner;
 
 /**
  * Represents a Chinese Chess piece.
@@ -34,13 +37,47 @@ public abstract class Piece {
 
     /**
      * Returns a collection of legal moves that can be made by this piece on the given board.
-     * Adds this piece's attacks and defenses to the given respective collections.
+     * Records this piece's attacks and defenses into the given relations.
      * @param board The current board.
-     * @param attacks The collection of attacks to add to.
-     * @param defenses The collection of defenses to add to.
+     * @param relations The relations to record into.
      * @return a collection of legal moves that can be made by this piece on the given board.
      */
-    public abstract Collection<Move> getLegalMoves(Board board, Collection<Attack> attacks, Collection<Defense> defenses);
+    public abstract Collection<Move> getLegalMoves(Board board, Relations relations);
+
+    /**
+     * Checks if this piece can move to the given position on the given board by the same rules as getLegalMoves(),
+     * without generating any moves. The given position is assumed to be within bounds, different from
+     * this piece's position and not occupied by a piece of the same alliance.
+     * @param board The current board.
+     * @param destPosition The destination position.
+     * @return true if this piece can move to the given position, false otherwise.
+     */
+    public abstract boolean canMoveTo(Board board, Coordinate destPosition);
+
+    /**
+     * Returns the number of pieces strictly between this piece and the given position in the same row or column.
+     */
+    int countPiecesBetween(Board board, Coordinate destPosition) {
+        Coordinate vector = new Coordinate(Integer.signum(destPosition.getRow() - position.getRow()),
+                Integer.signum(destPosition.getCol() - position.getCol()));
+        int count = 0;
+
+        for (Coordinate currPosition = position.add(vector); !currPosition.equals(destPosition);
+             currPosition = currPosition.add(vector)) {
+            if (!board.getPoint(currPosition).isEmpty()) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * Checks if the given position is in the same row or column as this piece.
+     */
+    boolean isInLine(Coordinate destPosition) {
+        return destPosition.getRow() == position.getRow() || destPosition.getCol() == position.getCol();
+    }
 
     /**
      * Moves this piece based on the given move and returns the new piece.
@@ -141,6 +178,8 @@ public abstract class Piece {
         GENERAL("G", MIDGAME_VALUES_GENERAL, ENDGAME_VALUES_GENERAL,
                 0, 4, 0, 0, 0);
 
+        private static final String AI_PIECEVALUES_PATH = "/ai/piecevalues.txt";
+
         private final String abbrev;
         private final int[][] midGameValues;
         private final int[][] endGameValues;
@@ -153,8 +192,8 @@ public abstract class Piece {
         PieceType(String abbrev, int[][] midGameValues, int[][] endGameValues,
                   int mobilityValue, int movePriority, int valueUnits, int attackUnits, int simpleUnits) {
             this.abbrev = abbrev;
-            this.midGameValues = midGameValues;
-            this.endGameValues = endGameValues;
+            this.midGameValues = copyValues(midGameValues);
+            this.endGameValues = copyValues(endGameValues);
             this.mobilityValue = mobilityValue;
             this.movePriority = movePriority;
             this.valueUnits = valueUnits;
@@ -162,6 +201,66 @@ public abstract class Piece {
             this.simpleUnits = simpleUnits;
         }
 
+        static {
+            readValues();
+        }
+
+        /**
+         * Returns a copy of the given values, so that tables shared by midgame and endgame can be tuned separately.
+         */
+        private static int[][] copyValues(int[][] values) {
+            int[][] copy = new int[values.length][];
+            for (int row = 0; row < values.length; row++) {
+                copy[row] = values[row].clone();
+            }
+            return copy;
+        }
+
+        /**
+         * Overrides the built-in values with the tuned values in the resource, if any.
+         * Each table is a line with the piece type and MIDGAME or ENDGAME, followed by its rows.
+         */
+        private static void readValues() {
+            InputStream in = PieceType.class.getResourceAsStream(AI_PIECEVALUES_PATH);
+            if (in == null) return;
+
+            try (Scanner scanner = new Scanner(in)) {
+                while (scanner.hasNext()) {
+                    PieceType pieceType = PieceType.valueOf(scanner.next());
+                    String stage = scanner.next();
+                    int[][] values;
+                    if (stage.equals("MIDGAME")) {
+                        values = pieceType.midGameValues;
+                    } else if (stage.equals("ENDGAME")) {
+                        values = pieceType.endGameValues;
+                    } else {
+                        throw new IllegalArgumentException("Invalid stage " + stage);
+                    }
+                    for (int row = 0; row < Board.NUM_ROWS; row++) {
+                        for (int col = 0; col < Board.NUM_COLS; col++) {
+                            values[row][col] = scanner.nextInt();
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                throw new IllegalStateException("Invalid piece values resource", e);
+            }
+        }
+
+        /**
+         * Returns the midgame value of this piece type at the given position, from RED's perspective.
+         */
+        public int getMidgameValue(int row, int col) {
+            return midGameValues[row][col];
+        }
+
+        /**
+         * Returns the endgame value of this piece type at the given position, from RED's perspective.
+         */
+        public int getEndgameValue(int row, int col) {
+            return endGameValues[row][col];
+        }
+
         public boolean isAttacking() {
             return attackUnits > 0;
         }
@@ -339,42 +438,89 @@ public abstract class Piece {
             {   0,   0,   0,   5,  55,   5,   0,   0,   0}
     };
 
-    public static abstract class Relation {
+    /**
+     * Represents the attacks and defenses on every point of a board, collected during move generation.
+     * Attackers and defenders are stored per point as counts and bitmasks of rows and columns,
+     * so that relations can be scored without allocating or hashing pieces.
+     */
+    public static class Relations {
+
+        private static final int NUM_POINTS = Board.NUM_ROWS * Board.NUM_COLS;
+        private static final int COL_SHIFT = 16; // columns are stored above rows in a line mask
+
+        private final int[] attackerCounts;
+        private final int[] defenderCounts;
+        private final int[] chariotDefenderCounts;
+        private final int[] defenderIndices; // index of the last defender of each point
+        private final int[] chariotAttackLines; // rows and columns of the chariots attacking each point
+        private final int[] cannonAttackLines; // rows and columns of the cannons attacking each point
+
+        public Relations() {
+            attackerCounts = new int[NUM_POINTS];
+            defenderCounts = new int[NUM_POINTS];
+            chariotDefenderCounts = new int[NUM_POINTS];
+            defenderIndices = new int[NUM_POINTS];
+            chariotAttackLines = new int[NUM_POINTS];
+            cannonAttackLines = new int[NUM_POINTS];
+        }
 
-        final Piece piece;
-        final Collection<Piece> relatedPieces;
+        /**
+         * Records an attack by the given piece on the given piece.
+         */
+        void addAttack(Piece attackingPiece, Piece attackedPiece) {
+            int index = BoardUtil.positionToIndex(attackedPiece.position);
+            attackerCounts[index]++;
+            if (attackingPiece.pieceType.equals(PieceType.CHARIOT)) {
+                chariotAttackLines[index] |= getLineMask(BoardUtil.positionToIndex(attackingPiece.position));
+            } else if (attackingPiece.pieceType.equals(PieceType.CANNON)) {
+                cannonAttackLines[index] |= getLineMask(BoardUtil.positionToIndex(attackingPiece.position));
+            }
+        }
 
-        private Relation(Piece piece, Collection<Piece> relatedPieces) {
-            this.piece = piece;
-            this.relatedPieces = relatedPieces;
+        /**
+         * Records a defense by the given piece of the given piece.
+         */
+        void addDefense(Piece defendingPiece, Piece defendedPiece) {
+            int index = BoardUtil.positionToIndex(defendedPiece.position);
+            defenderCounts[index]++;
+            if (defendingPiece.pieceType.equals(PieceType.CHARIOT)) {
+                chariotDefenderCounts[index]++;
+            }
+            defenderIndices[index] = BoardUtil.positionToIndex(defendingPiece.position);
         }
 
-        public Piece getPiece() {
-            return piece;
+        /**
+         * Returns a mask with the row and column of the point with the given index set.
+         */
+        public static int getLineMask(int index) {
+            return (1 << (index / Board.NUM_COLS)) | (1 << (index % Board.NUM_COLS + COL_SHIFT));
         }
 
-        public Collection<Piece> getRelatedPieces() {
-            return relatedPieces;
+        public int getAttackerCount(int index) {
+            return attackerCounts[index];
         }
-    }
 
-    /**
-     * Represents the attacks by a piece.
-     */
-    public static class Attack extends Relation {
+        public int getDefenderCount(int index) {
+            return defenderCounts[index];
+        }
 
-        public Attack(Piece attackingPiece, Collection<Piece> attackedPieces) {
-            super(attackingPiece, attackedPieces);
+        public int getChariotDefenderCount(int index) {
+            return chariotDefenderCounts[index];
         }
-    }
 
-    /**
-     * Represents the defenses by a piece.
-     */
-    public static class Defense extends Relation {
+        /**
+         * Returns the index of the point of a defender of the given point, if it has any defenders.
+         */
+        public int getDefenderIndex(int index) {
+            return defenderIndices[index];
+        }
+
+        public int getChariotAttackLines(int index) {
+            return chariotAttackLines[index];
+        }
 
-        public Defense(Piece defendingPiece, Collection<Piece> defendedPieces) {
-            super(defendingPiece, defendedPieces);
+        public int getCannonAttackLines(int index) {
+            return cannonAttackLines[index];
         }
     }
 }
@@ -54,10 +54,18 @@ public class Soldier extends Piece {
     }
 
     @Override
-    public Collection<Move> getLegalMoves(Board board, Collection<Attack> attacks, Collection<Defense> defenses) {
+    public boolean canMoveTo(Board board, Coordinate destPosition) {
+        int rowOffset = (destPosition.getRow() - position.getRow()) * alliance.getDirection();
+        int colOffset = destPosition.getCol() - position.getCol();
+        if (rowOffset == 1 && colOffset == 0) { // forward
+            return true;
+        }
+        return crossedRiver() && rowOffset == 0 && Math.abs(colOffset) == 1;
+    }
+
+    @Override
+    public Collection<Move> getLegalMoves(Board board, Relations relations) {
         List<Move> legalMoves = new ArrayList<>();
-        List<Piece> attackedPieces = new ArrayList<>();
-        List<Piece> defendedPieces = new ArrayList<>();
 
         if (!crossedRiver()) {
             Coordinate destPosition = position.add(MOVE_VECTOR_BEFORE_RIVER.scale(alliance.getDirection()));
@@ -65,9 +73,9 @@ public class Soldier extends Piece {
             destPiece.ifPresentOrElse(p -> {
                 if (!p.alliance.equals(this.alliance)) {
                     legalMoves.add(new Move(board.getZobristKey(), this, destPosition, p));
-                    attackedPieces.add(p);
+                    relations.addAttack(this, p);
                 } else {
-                    defendedPieces.add(p);
+                    relations.addDefense(this, p);
                 }
             }, () -> legalMoves.add(new Move(board.getZobristKey(), this, destPosition)));
         } else {
@@ -78,19 +86,14 @@ public class Soldier extends Piece {
                     destPiece.ifPresentOrElse(p -> {
                         if (!p.alliance.equals(this.alliance)) {
                             legalMoves.add(new Move(board.getZobristKey(), this, destPosition, p));
-                            attackedPieces.add(p);
+                            relations.addAttack(this, p);
                         } else {
-                            defendedPieces.add(p);
+                            relations.addDefense(this, p);
                         }
                     }, () -> legalMoves.add(new Move(board.getZobristKey(), this, destPosition)));
                 }
             }
         }
-        Attack attack = new Attack(this, attackedPieces);
-        Defense defense = new Defense(this, defendedPieces);
-
-        attacks.add(attack);
-        defenses.add(defense);
         return Collections.unmodifiableList(legalMoves);
     }
 
@@ -104,4 +107,22 @@ public class Soldier extends Piece {
         Coordinate mirrorPosition = new Coordinate(position.getRow(), Board.NUM_COLS - 1 - position.getCol());
         return new Soldier(mirrorPosition, alliance);
     }
+
+    /**
+     * Checks if the given position can be reached by a soldier of the given alliance:
+     * any position across the river, or a starting column on its own side of the river.
+     * @param positionToTest The position to check.
+     * @param alliance The alliance of the soldier.
+     * @return true if the given position can be reached by a soldier of the given alliance, false otherwise.
+     */
+    public static boolean isValidPosition(Coordinate positionToTest, Alliance alliance) {
+        int row = positionToTest.getRow();
+        int col = positionToTest.getCol();
+
+        if (alliance.isRed()) {
+            return row < Board.RIVER_ROW_RED || (row <= Board.RIVER_ROW_RED + 1 && col % 2 == 0);
+        } else {
+            return row > Board.RIVER_ROW_BLACK || (row >= Board.RIVER_ROW_BLACK - 1 && col % 2 == 0);
+        }
+    }
 }
@@ -22,19 +22,14 @@ public class Player {
     private final Collection<Move> legalMoves;
     private final boolean isInCheck;
     private final int totalMobilityValue;
-    private final Collection<Attack> attacks;
-    private final Collection<Defense> defenses;
 
     public Player(Alliance alliance, Collection<Piece> activePieces, Collection<Move> legalMoves,
-                  Collection<Move> oppLegalMoves, int totalMobilityValue,
-                  Collection<Attack> attacks, Collection<Defense> defenses) {
+                  Collection<Move> oppLegalMoves, int totalMobilityValue) {
         this.alliance = alliance;
         this.activePieces = activePieces;
         this.legalMoves = legalMoves;
         isInCheck = !getIncomingAttacks(findPlayerGeneral().getPosition(), oppLegalMoves).isEmpty();
         this.totalMobilityValue = totalMobilityValue;
-        this.attacks = attacks;
-        this.defenses = defenses;
     }
 
     /**
@@ -84,12 +79,4 @@ public class Player {
     public int getTotalMobilityValue() {
         return totalMobilityValue;
     }
-
-    public Collection<Attack> getAttacks() {
-        return Collections.unmodifiableCollection(attacks);
-    }
-
-    public Collection<Defense> getDefenses() {
-        return Collections.unmodifiableCollection(defenses);
-    }
 }
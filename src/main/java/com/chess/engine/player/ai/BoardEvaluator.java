@@ -8,125 +8,155 @@ import com.chess.engine.board.Point;
 import com.chess.engine.pieces.General;
 import com.chess.engine.pieces.Piece;
 import com.chess.engine.player.Player;
-import com.chess.gui.Table;
+import com.chess.engine.player.ai.EvalParams.Param;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
 
 import static com.chess.engine.board.Board.*;
 import static com.chess.engine.pieces.Piece.*;
 
 /**
- * A helper class for evaluating a board.
+ * Represents the classic hand-written evaluation of a board.
+ * Also provides helper methods for checkmate values shared by all evaluators.
  */
-class BoardEvaluator {
+public class BoardEvaluator implements Evaluator {
+
+    private static final BoardEvaluator INSTANCE = new BoardEvaluator(EvalParams.getDefault());
 
-    private static final Random rand = new Random();
-    private static final int RANDOM_BOUND = 10;
     private static final Coordinate FORWARD_VECTOR = new Coordinate(1, 0);
     private static final Coordinate PALACE_CENTRE_RED = new Coordinate(8, 4);
     private static final Coordinate PALACE_CENTRE_BLACK = new Coordinate(1, 4);
 
-    private static final int CHECKMATE_VALUE = 10000;
+    static final int CHECKMATE_VALUE = 10000;
+    static final int MAX_CHECKMATE_PLY = 256; // maximum distance from the root of a checkmate value
     private static final int MAX_SIMPLE_UNITS = 66;
     private static final int MAX_ATTACK_VALUE = 8;
+    private static final int PHASE_SHIFT = 8;
+    public static final int MAX_PHASE = 1 << PHASE_SHIFT; // phase of the starting position
+    private static final int[] PHASES = getPhases(); // phase for each total of simple units
+
+    private final int generalPenalty;
+    private final int chariotBonus;
+    private final int cannonHorseBonus;
+    private final int defenseBonusFactor;
+    private final int cannonElephantBonus;
+    private final int chariotAdvisorBonus;
+    private final int chariotPinFactor;
+    private final int cannonPinFactor;
+    private final int[] cannonHollowBonus;
+    private final int[] cannonCentralBonus;
+    private final int cannonCentralReduction;
+    private final int cannonChariotBonus;
+    private final int[] cannonBottomBonus;
+
+    /**
+     * @param params The values of the parameters of this evaluator.
+     */
+    public BoardEvaluator(EvalParams params) {
+        generalPenalty = params.get(Param.GENERAL_PENALTY);
+        chariotBonus = params.get(Param.CHARIOT_BONUS);
+        cannonHorseBonus = params.get(Param.CANNON_HORSE_BONUS);
+        defenseBonusFactor = params.get(Param.DEFENSE_BONUS_FACTOR);
+        cannonElephantBonus = params.get(Param.CANNON_ELEPHANT_BONUS);
+        chariotAdvisorBonus = params.get(Param.CHARIOT_ADVISOR_BONUS);
+        chariotPinFactor = params.get(Param.CHARIOT_PIN_FACTOR);
+        cannonPinFactor = params.get(Param.CANNON_PIN_FACTOR);
+        cannonHollowBonus = params.getValues(Param.CANNON_HOLLOW_BONUS);
+        cannonCentralBonus = params.getValues(Param.CANNON_CENTRAL_BONUS);
+        cannonCentralReduction = params.get(Param.CANNON_CENTRAL_REDUCTION);
+        cannonChariotBonus = params.get(Param.CANNON_CHARIOT_BONUS);
+        cannonBottomBonus = params.getValues(Param.CANNON_BOTTOM_BONUS);
+    }
 
-    private static final int GENERAL_PENALTY = 100;
-    private static final int CHARIOT_BONUS = 50;
-    private static final int CANNON_HORSE_BONUS = 20;
-    private static final int DEFENSE_BONUS_FACTOR = 60;
+    /**
+     * Returns the classic evaluator with the default parameters.
+     * @return The classic evaluator with the default parameters.
+     */
+    public static BoardEvaluator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the value of a board whose current player has been checkmated, from the perspective of that player.
+     * Checkmates closer to the root are valued more extremely.
+     * @param ply The distance of the checkmated board from the root.
+     * @return The value of a board whose current player has been checkmated.
+     */
+    static int getCheckmateValue(int ply) {
+        return -CHECKMATE_VALUE + ply;
+    }
 
-    private static final int CANNON_ELEPHANT_BONUS = 100;
-    private static final int CHARIOT_ADVISOR_BONUS = 400;
+    /**
+     * Checks if the given value represents a forced checkmate for either player.
+     * @param val The value to check.
+     * @return true if the given value represents a forced checkmate, false otherwise.
+     */
+    static boolean isCheckmateValue(int val) {
+        return Math.abs(val) >= CHECKMATE_VALUE - MAX_CHECKMATE_PLY;
+    }
 
-    private static final int CHARIOT_PIN_FACTOR = 7;
-    private static final int CANNON_PIN_FACTOR = 5;
+    /**
+     * Returns the number of plies from the root to the checkmate represented by the given value.
+     * @param val The checkmate value.
+     * @return The number of plies from the root to the checkmate.
+     */
+    static int getCheckmatePly(int val) {
+        return CHECKMATE_VALUE - Math.abs(val);
+    }
 
-    private static final int[] CANNON_HOLLOW_BONUS = {400, 400, 400, 375, 350, 325, 300, 0, 0, 0};
-    private static final int[] CANNON_CENTRAL_BONUS = {150, 150, 150, 175, 200, 225, 250, 0, 0, 0};
-    private static final int CANNON_CENTRAL_REDUCTION = 4;
-    private static final int CANNON_CHARIOT_BONUS = 100;
-    private static final int[] CANNON_BOTTOM_BONUS = {200, 150,  0,  0,  0,  0,  0, 150, 200};
+    /**
+     * Returns the game phase for each total of simple units, from 0 (endgame) to MAX_PHASE (midgame).
+     * The phase falls slowly as the first pieces are exchanged and quickly as the last pieces are.
+     */
+    private static int[] getPhases() {
+        int[] phases = new int[MAX_SIMPLE_UNITS + 1];
+        for (int units = 0; units <= MAX_SIMPLE_UNITS; units++) {
+            phases[units] = (2 * MAX_SIMPLE_UNITS - units) * units * MAX_PHASE / (MAX_SIMPLE_UNITS * MAX_SIMPLE_UNITS);
+        }
+        return phases;
+    }
 
     /**
-     * Returns the heuristic value of the given board.
-     * The higher the value, the better for the red player.
+     * Returns the game phase of the given board, from 0 (endgame) to MAX_PHASE (midgame).
      * @param board The current board.
-     * @return The heuristic value of the given board.
+     * @return The game phase of the given board.
      */
-    static int evaluate(Board board) {
-        return board.isCurrPlayerCheckmated() ? getCheckmateValue(board.getCurrPlayer().getAlliance(), 0)
-                : (getScoreDiff(board) + (Table.getInstance().isAIRandomised() ? rand.nextInt(RANDOM_BOUND) : 0));
+    public static int getPhase(Board board) {
+        int totalSimpleUnits = board.getSimpleUnits(Alliance.RED) + board.getSimpleUnits(Alliance.BLACK);
+        return PHASES[Math.min(totalSimpleUnits, MAX_SIMPLE_UNITS)];
     }
 
     /**
-     * Returns the checkmate value for the checkmated alliance and given depth.
-     * @param alliance The alliance of the checkmated player.
-     * @param depth The current depth.
-     * @return The checkmate value for the checkmated alliance and given depth.
+     * Returns the difference between the tapered piece values (summed by the board) of the two players.
+     * @param board The current board.
+     * @param phase The game phase of the given board.
+     * @return The difference between the tapered piece values of the two players.
      */
-    static int getCheckmateValue(Alliance alliance, int depth) {
-        return alliance.isRed() ? (-1 * CHECKMATE_VALUE) * (depth + 1) : CHECKMATE_VALUE * (depth + 1);
+    public static int getMaterialScore(Board board, int phase) {
+        int midgameValueDiff = board.getMidgameValue(Alliance.RED) - board.getMidgameValue(Alliance.BLACK);
+        int endgameValueDiff = board.getEndgameValue(Alliance.RED) - board.getEndgameValue(Alliance.BLACK);
+        return taper(midgameValueDiff, endgameValueDiff, phase);
     }
 
     /**
      * Returns the score difference between the two players on the given board.
+     * Piece values are accumulated separately for midgame and endgame and tapered once by the game phase.
      */
-    private static int getScoreDiff(Board board) {
-        Player redPlayer = board.getPlayer(Alliance.RED);
-        Player blackPlayer = board.getPlayer(Alliance.BLACK);
+    @Override
+    public int evaluate(Board board) {
         int redScore = 0, blackScore = 0;
-        int[] pieceValues = new int[90];
 
         // add mobility values
-        redScore += redPlayer.getTotalMobilityValue();
-        blackScore += blackPlayer.getTotalMobilityValue();
-
-        // calculate total simple units, player value units and attack value
-        // tabulate piece counts; get cannons and chariots
-        int totalSimpleUnits = 0;
-        int redValueUnits = 0, blackValueUnits = 0;
-        int redAttackValue = 0, blackAttackValue = 0;
-        int[] redPieceCount = new int[7];
-        int[] blackPieceCount = new int[7];
-        Collection<Piece> redCannons = new ArrayList<>();
-        Collection<Piece> redChariots = new ArrayList<>();
-        Collection<Piece> blackCannons = new ArrayList<>();
-        Collection<Piece> blackChariots = new ArrayList<>();
-        for (Piece piece : redPlayer.getActivePieces()) {
-            totalSimpleUnits += piece.getPieceType().getSimpleUnits();
-            redValueUnits += piece.getPieceType().getValueUnits();
-            if (piece.crossedRiver()) {
-                redAttackValue += piece.getPieceType().getAttackUnits();
-            }
-            PieceType pieceType = piece.getPieceType();
-            redPieceCount[pieceType.ordinal()]++;
-            if (pieceType.equals(PieceType.CANNON)) {
-                redCannons.add(piece);
-            } else if (pieceType.equals(PieceType.CHARIOT)) {
-                redChariots.add(piece);
-            }
-        }
-        for (Piece piece : blackPlayer.getActivePieces()) {
-            totalSimpleUnits += piece.getPieceType().getSimpleUnits();
-            blackValueUnits += piece.getPieceType().getValueUnits();
-            if (piece.crossedRiver()) {
-                blackAttackValue += piece.getPieceType().getAttackUnits();
-            }
-            PieceType pieceType = piece.getPieceType();
-            blackPieceCount[pieceType.ordinal()]++;
-            if (pieceType.equals(PieceType.CANNON)) {
-                blackCannons.add(piece);
-            } else if (pieceType.equals(PieceType.CHARIOT)) {
-                blackChariots.add(piece);
-            }
-        }
-        // adjust total simple units and player attack values
-        totalSimpleUnits = (2 * MAX_SIMPLE_UNITS - totalSimpleUnits) * totalSimpleUnits / MAX_SIMPLE_UNITS;
+        redScore += getMobilityScore(board);
+
+        // get game phase, player value units and attack values (simple units are maintained by the board)
+        int phase = getPhase(board);
+        int redValueUnits = board.getValueUnits(Alliance.RED);
+        int blackValueUnits = board.getValueUnits(Alliance.BLACK);
+        int redAttackValue = board.getAttackUnits(Alliance.RED);
+        int blackAttackValue = board.getAttackUnits(Alliance.BLACK);
+        // adjust player attack values
         if (redValueUnits > blackValueUnits) {
             redAttackValue += (redValueUnits - blackValueUnits) * 2;
         } else if (blackValueUnits > redValueUnits) {
@@ -135,103 +165,129 @@ class BoardEvaluator {
         redAttackValue = Math.min(redAttackValue, MAX_ATTACK_VALUE);
         blackAttackValue = Math.min(blackAttackValue, MAX_ATTACK_VALUE);
 
-        // calculate basic piece values
-        for (Piece piece : redPlayer.getActivePieces()) {
-            int value = getPieceValue(piece, totalSimpleUnits);
-            pieceValues[BoardUtil.positionToIndex(piece.getPosition())] = value;
-            redScore += value;
-        }
-        for (Piece piece : blackPlayer.getActivePieces()) {
-            int value = getPieceValue(piece, totalSimpleUnits);
-            pieceValues[BoardUtil.positionToIndex(piece.getPosition())] = value;
-            blackScore += value;
-        }
+        // add tapered piece values
+        redScore += getMaterialScore(board, phase);
 
-        int redChariotCount = redPieceCount[PieceType.CHARIOT.ordinal()];
-        int redCannonCount = redPieceCount[PieceType.CANNON.ordinal()];
-        int redHorseCount = redPieceCount[PieceType.HORSE.ordinal()];
-        int redElephantCount = redPieceCount[PieceType.ELEPHANT.ordinal()];
-        int redAdvisorCount = redPieceCount[PieceType.ADVISOR.ordinal()];
-        int blackChariotCount = blackPieceCount[PieceType.CHARIOT.ordinal()];
-        int blackCannonCount = blackPieceCount[PieceType.CANNON.ordinal()];
-        int blackHorseCount = blackPieceCount[PieceType.HORSE.ordinal()];
-        int blackElephantCount = blackPieceCount[PieceType.ELEPHANT.ordinal()];
-        int blackAdvisorCount = blackPieceCount[PieceType.ADVISOR.ordinal()];
+        int redChariotCount = board.getPieceCount(Alliance.RED, PieceType.CHARIOT);
+        int redCannonCount = board.getPieceCount(Alliance.RED, PieceType.CANNON);
+        int redHorseCount = board.getPieceCount(Alliance.RED, PieceType.HORSE);
+        int redElephantCount = board.getPieceCount(Alliance.RED, PieceType.ELEPHANT);
+        int redAdvisorCount = board.getPieceCount(Alliance.RED, PieceType.ADVISOR);
+        int blackChariotCount = board.getPieceCount(Alliance.BLACK, PieceType.CHARIOT);
+        int blackCannonCount = board.getPieceCount(Alliance.BLACK, PieceType.CANNON);
+        int blackHorseCount = board.getPieceCount(Alliance.BLACK, PieceType.HORSE);
+        int blackElephantCount = board.getPieceCount(Alliance.BLACK, PieceType.ELEPHANT);
+        int blackAdvisorCount = board.getPieceCount(Alliance.BLACK, PieceType.ADVISOR);
 
         // general on palace centre might be bad when having 2 advisors
         if (redAdvisorCount == 2) {
            if (board.getPoint(PALACE_CENTRE_RED).getPiece()
                    .map(p -> p.getPieceType().equals(PieceType.GENERAL)).orElse(false)) {
-               redScore -= GENERAL_PENALTY;
+               redScore -= generalPenalty;
            }
         }
         if (blackAdvisorCount == 2) {
             if (board.getPoint(PALACE_CENTRE_BLACK).getPiece()
                     .map(p -> p.getPieceType().equals(PieceType.GENERAL)).orElse(false)) {
-                blackScore -= GENERAL_PENALTY;
+                blackScore -= generalPenalty;
             }
         }
         // chariot(s) might be strong against no chariot
         if (redChariotCount > 0 && blackChariotCount == 0 && (blackCannonCount + blackHorseCount) <= 2) {
-            redScore += CHARIOT_BONUS;
+            redScore += chariotBonus;
         }
         if (blackChariotCount > 0 && redChariotCount == 0 && (redCannonCount + redHorseCount) <= 2) {
-            blackScore += CHARIOT_BONUS;
+            blackScore += chariotBonus;
         }
         // cannon+horse might be better than cannon+cannon or horse+horse
         if (redCannonCount > 0 && redHorseCount > 0) {
-            redScore += CANNON_HORSE_BONUS;
+            redScore += cannonHorseBonus;
         }
         if (blackCannonCount > 0 && blackHorseCount > 0) {
-            blackScore += CANNON_HORSE_BONUS;
+            blackScore += cannonHorseBonus;
         }
         // cannon might be strong against lack of elephants
         if (redCannonCount > blackElephantCount) {
-            redScore += (redCannonCount - blackElephantCount) * CANNON_ELEPHANT_BONUS
+            redScore += (redCannonCount - blackElephantCount) * cannonElephantBonus
                     * redAttackValue / MAX_ATTACK_VALUE;
         }
         if (blackCannonCount > redElephantCount) {
-            blackScore += (blackCannonCount - redElephantCount) * CANNON_ELEPHANT_BONUS
+            blackScore += (blackCannonCount - redElephantCount) * cannonElephantBonus
                     * blackAttackValue / MAX_ATTACK_VALUE;
         }
         // double chariots might be strong against lack of advisors
-        if (redChariotCount == 2 && blackAdvisorCount < 2) {
-            redScore += CHARIOT_ADVISOR_BONUS * redAttackValue / MAX_ATTACK_VALUE;
-        }
-        if (blackChariotCount == 2 && redAdvisorCount < 2) {
-            blackScore += CHARIOT_ADVISOR_BONUS * blackAttackValue / MAX_ATTACK_VALUE;
-        }
+        redScore += getChariotAdvisorScore(board, redAttackValue, blackAttackValue);
         // get cannon special bonuses
-        for (Piece cannon : redCannons) {
-            redScore += getCannonBonus(board, totalSimpleUnits, redAttackValue, cannon, redChariots);
+        redScore += getCannonScore(board, phase, redAttackValue, blackAttackValue);
+
+        // calculate relation scores
+        int relationScoreDiff = getRelationScore(board, phase);
+
+        return redScore - blackScore + relationScoreDiff;
+    }
+
+    /**
+     * Returns the difference between the mobility values of the two players.
+     */
+    int getMobilityScore(Board board) {
+        return board.getPlayer(Alliance.RED).getTotalMobilityValue()
+                - board.getPlayer(Alliance.BLACK).getTotalMobilityValue();
+    }
+
+    /**
+     * Returns the difference between the bonuses of the two players for double chariots against lack of advisors.
+     */
+    int getChariotAdvisorScore(Board board, int redAttackValue, int blackAttackValue) {
+        int score = 0;
+        if (board.getPieceCount(Alliance.RED, PieceType.CHARIOT) == 2
+                && board.getPieceCount(Alliance.BLACK, PieceType.ADVISOR) < 2) {
+            score += chariotAdvisorBonus * redAttackValue / MAX_ATTACK_VALUE;
         }
-        for (Piece cannon : blackCannons) {
-            blackScore += getCannonBonus(board, totalSimpleUnits, blackAttackValue, cannon, blackChariots);
+        if (board.getPieceCount(Alliance.BLACK, PieceType.CHARIOT) == 2
+                && board.getPieceCount(Alliance.RED, PieceType.ADVISOR) < 2) {
+            score -= chariotAdvisorBonus * blackAttackValue / MAX_ATTACK_VALUE;
         }
+        return score;
+    }
 
-        // store all attacks and defenses into maps
-        Map<Piece, List<Piece>> incomingAttacksMap = new HashMap<>();
-        Map<Piece, List<Piece>> defendingPiecesMap = new HashMap<>();
-        storeRelationIntoMap(redPlayer.getAttacks(), incomingAttacksMap);
-        storeRelationIntoMap(blackPlayer.getAttacks(), incomingAttacksMap);
-        storeRelationIntoMap(redPlayer.getDefenses(), defendingPiecesMap);
-        storeRelationIntoMap(blackPlayer.getDefenses(), defendingPiecesMap);
+    /**
+     * Returns the difference between the special cannon bonuses of the two players.
+     */
+    int getCannonScore(Board board, int phase, int redAttackValue, int blackAttackValue) {
+        Player redPlayer = board.getPlayer(Alliance.RED);
+        Player blackPlayer = board.getPlayer(Alliance.BLACK);
+        int score = 0;
 
-        // calculate relation scores
-        int relationScoreDiff =
-                calculateRelationScore(pieceValues, redPlayer.getActivePieces(),
-                        incomingAttacksMap, defendingPiecesMap)
-                - calculateRelationScore(pieceValues, blackPlayer.getActivePieces(),
-                        incomingAttacksMap, defendingPiecesMap);
+        if (board.getPieceCount(Alliance.RED, PieceType.CANNON) > 0) {
+            for (Piece piece : redPlayer.getActivePieces()) {
+                if (piece.getPieceType().equals(PieceType.CANNON)) {
+                    score += getCannonBonus(board, phase, redAttackValue, piece, redPlayer);
+                }
+            }
+        }
+        if (board.getPieceCount(Alliance.BLACK, PieceType.CANNON) > 0) {
+            for (Piece piece : blackPlayer.getActivePieces()) {
+                if (piece.getPieceType().equals(PieceType.CANNON)) {
+                    score -= getCannonBonus(board, phase, blackAttackValue, piece, blackPlayer);
+                }
+            }
+        }
+        return score;
+    }
 
-        return redScore - blackScore + relationScoreDiff;
+    /**
+     * Returns the difference between the relation scores of the two players.
+     */
+    int getRelationScore(Board board, int phase) {
+        Relations relations = board.getRelations();
+        return calculateRelationScore(phase, board.getPlayer(Alliance.RED).getActivePieces(), relations)
+                - calculateRelationScore(phase, board.getPlayer(Alliance.BLACK).getActivePieces(), relations);
     }
 
     /**
      * Returns the bonus value of the given cannon on the given board.
      */
-    private static int getCannonBonus(Board board, int totalSimpleUnits, int attackValue,
-                                      Piece cannon, Collection<Piece> chariots) {
+    private int getCannonBonus(Board board, int phase, int attackValue, Piece cannon, Player player) {
         Coordinate cannonPosition = cannon.getPosition();
         Alliance cannonAlliance = cannon.getAlliance();
         Alliance oppAlliance = cannonAlliance.opposite();
@@ -268,8 +324,7 @@ class BoardEvaluator {
             }
 
             if (pieceCount == 0) { // advisors at start
-                return CANNON_HOLLOW_BONUS[cannonRank - 1]
-                        * (totalSimpleUnits + MAX_SIMPLE_UNITS) / (2 * MAX_SIMPLE_UNITS);
+                return taper(cannonHollowBonus[cannonRank - 1], cannonHollowBonus[cannonRank - 1] / 2, phase);
             }
 
             // pieceCount == 2, left/right advisors
@@ -279,14 +334,14 @@ class BoardEvaluator {
             if (!centralHorsePoint.isEmpty()
                     && centralHorsePoint.getPiece().get().getPieceType().equals(PieceType.HORSE)
                     && centralHorsePoint.getPiece().get().getAlliance().equals(oppAlliance)) {
-                return CANNON_CENTRAL_BONUS[cannonRank - 1];
+                return cannonCentralBonus[cannonRank - 1];
             }
 
             int bonus;
-            if (chariots.isEmpty()) {
+            if (board.getPieceCount(cannonAlliance, PieceType.CHARIOT) == 0) {
                 return 0;
             } else {
-                bonus = CANNON_CENTRAL_BONUS[cannonRank - 1] / CANNON_CENTRAL_REDUCTION;
+                bonus = cannonCentralBonus[cannonRank - 1] / cannonCentralReduction;
             }
             // check if chariot at opp general free file
             int freeCol;
@@ -295,9 +350,9 @@ class BoardEvaluator {
             } else { // left free
                 freeCol = BoardUtil.fileToCol(6, oppAlliance);
             }
-            for (Piece chariot : chariots) {
-                if (chariot.getPosition().getCol() == freeCol) {
-                    bonus += CANNON_CHARIOT_BONUS;
+            for (Piece piece : player.getActivePieces()) {
+                if (piece.getPieceType().equals(PieceType.CHARIOT) && piece.getPosition().getCol() == freeCol) {
+                    bonus += cannonChariotBonus;
                 }
             }
 
@@ -306,69 +361,46 @@ class BoardEvaluator {
             AdvisorStructure oppAdvStruct = board.getAdvisorStructure(oppAlliance);
             if ((oppAdvStruct.equals(AdvisorStructure.LEFT) && cannonFile > 5)
                     || (oppAdvStruct.equals(AdvisorStructure.RIGHT) && cannonFile < 5)) {
-                return CANNON_BOTTOM_BONUS[cannonFile - 1] * attackValue / MAX_ATTACK_VALUE;
+                return cannonBottomBonus[cannonFile - 1] * attackValue / MAX_ATTACK_VALUE;
             }
         }
 
         return 0;
     }
 
-    /**
-     * Stores the given collection of relations into a map.
-     */
-    private static void storeRelationIntoMap(Collection<? extends Relation> relations, Map<Piece, List<Piece>> map) {
-        for (Relation relation : relations) {
-            Piece piece = relation.getPiece();
-            for (Piece relatedPiece : relation.getRelatedPieces()) {
-                if (map.containsKey(relatedPiece)) {
-                    map.get(relatedPiece).add(piece);
-                } else {
-                    List<Piece> pieces = new ArrayList<>();
-                    pieces.add(piece);
-                    map.put(relatedPiece, pieces);
-                }
-            }
-        }
-    }
-
     /**
      * Returns the total relation score of the given pieces (same alliance).
      */
-    private static int calculateRelationScore(int[] pieceValues, Collection<Piece> pieces,
-                                              Map<Piece, List<Piece>> incomingAttacksMap,
-                                              Map<Piece, List<Piece>> defendingPiecesMap) {
+    private int calculateRelationScore(int phase, Collection<Piece> pieces, Relations relations) {
         int score = 0;
 
         for (Piece piece : pieces) {
             PieceType pieceType = piece.getPieceType();
             if (pieceType.equals(PieceType.GENERAL)) continue;
 
-            int pieceValue = pieceValues[BoardUtil.positionToIndex(piece.getPosition())];
-            List<Piece> attackingPieces = incomingAttacksMap.get(piece);
-            List<Piece> defendingPieces = defendingPiecesMap.get(piece);
+            int index = BoardUtil.positionToIndex(piece.getPosition());
+            int defenderCount = relations.getDefenderCount(index);
+            if (defenderCount == 0) continue;
+            int pieceValue = taper(piece.getMidgameValue(), piece.getEndgameValue(), phase);
 
             // add defense scores
-            if (defendingPieces != null && !pieceType.equals(PieceType.CHARIOT)) {
-                score += pieceValue / DEFENSE_BONUS_FACTOR;
+            if (!pieceType.equals(PieceType.CHARIOT)) {
+                score += pieceValue / defenseBonusFactor;
             }
 
-            if (attackingPieces == null || defendingPieces == null || defendingPieces.size() != 1
-                    || !defendingPieces.get(0).getPieceType().equals(PieceType.CHARIOT)) continue;
+            if (relations.getAttackerCount(index) == 0 || defenderCount != 1
+                    || relations.getChariotDefenderCount(index) != 1) continue;
 
-            // add pin penalty
-            for (Piece attackingPiece : attackingPieces) {
-                if (attackingPiece.getPieceType().equals(PieceType.CHARIOT)
-                        && !piece.getPieceType().equals(PieceType.CHARIOT)
-                        && defendingPiecesMap.get(defendingPieces.get(0)) == null) {
-                    if (BoardUtil.sameColOrRow(attackingPiece.getPosition(), defendingPieces.get(0).getPosition())) {
-                        score -= pieceValue / CHARIOT_PIN_FACTOR;
-                    }
-                } else if (attackingPiece.getPieceType().equals(PieceType.CANNON)
-                        && !piece.getPieceType().equals(PieceType.CANNON)) {
-                    if (BoardUtil.sameColOrRow(attackingPiece.getPosition(), defendingPieces.get(0).getPosition())) {
-                        score -= pieceValue / CANNON_PIN_FACTOR;
-                    }
-                }
+            // add pin penalties for attackers in line with the only defender
+            int defenderIndex = relations.getDefenderIndex(index);
+            int defenderLine = Relations.getLineMask(defenderIndex);
+            if (!pieceType.equals(PieceType.CHARIOT) && relations.getDefenderCount(defenderIndex) == 0
+                    && (relations.getChariotAttackLines(index) & defenderLine) != 0) {
+                score -= pieceValue / chariotPinFactor;
+            }
+            if (!pieceType.equals(PieceType.CANNON)
+                    && (relations.getCannonAttackLines(index) & defenderLine) != 0) {
+                score -= pieceValue / cannonPinFactor;
             }
         }
 
@@ -376,10 +408,9 @@ class BoardEvaluator {
     }
 
     /**
-     * Returns the weighted value of the given piece.
+     * Returns the blend of the given midgame and endgame values based on the given game phase.
      */
-    private static int getPieceValue(Piece piece, int totalSimpleUnits) {
-        return (piece.getMidgameValue() * totalSimpleUnits
-                + piece.getEndgameValue() * (MAX_SIMPLE_UNITS - totalSimpleUnits)) / MAX_SIMPLE_UNITS;
+    private static int taper(int midgameValue, int endgameValue, int phase) {
+        return (midgameValue * phase + endgameValue * (MAX_PHASE - phase)) >> PHASE_SHIFT;
     }
 }
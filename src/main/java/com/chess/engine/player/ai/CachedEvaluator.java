@@ -0,0 +1,48 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+
+/**
+ * Represents an evaluator that looks up and stores the values of another evaluator in an evaluation cache.
+ * A cache should only be shared by evaluators that give the same values.
+ */
+public class CachedEvaluator implements Evaluator {
+
+    private final Evaluator evaluator;
+    private final EvalCache evalCache;
+
+    /**
+     * @param evaluator The evaluator whose values are cached.
+     * @param evalCache The cache of static evaluations to look up and store into.
+     */
+    public CachedEvaluator(Evaluator evaluator, EvalCache evalCache) {
+        this.evaluator = evaluator;
+        this.evalCache = evalCache;
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        long zobristKey = board.getZobristKey();
+        int val = evalCache.probe(zobristKey);
+        if (val == EvalCache.MISS) {
+            val = evaluator.evaluate(board);
+            evalCache.store(zobristKey, val);
+        }
+        return val;
+    }
+
+    @Override
+    public Evaluator attach(Board board) {
+        Evaluator attachedEvaluator = evaluator.attach(board);
+        return attachedEvaluator == evaluator ? this : new CachedEvaluator(attachedEvaluator, evalCache);
+    }
+
+    @Override
+    public void detach(Board board) {
+        evaluator.detach(board);
+    }
+
+    public EvalCache getEvalCache() {
+        return evalCache;
+    }
+}
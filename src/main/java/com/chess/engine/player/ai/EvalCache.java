@@ -0,0 +1,95 @@
+package com.chess.engine.player.ai;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents a fixed-size cache of static board evaluations, keyed by Zobrist key.
+ * Each entry packs the upper half of the Zobrist key and the score into a single long,
+ * so entries can be read and written by concurrent searches without locking.
+ * Entries are accessed with opaque semantics, which guarantee that a long is never torn into halves
+ * of different entries and cost no more than plain accesses on 64-bit platforms.
+ */
+public class EvalCache {
+
+    static final int MISS = Integer.MIN_VALUE; // returned by probe when the key is not cached
+    private static final int DEFAULT_SIZE = 1 << 20; // default number of entries (8 MB)
+    private static final EvalCache SHARED = new EvalCache(DEFAULT_SIZE);
+
+    private final AtomicLongArray entries;
+    private final int mask;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * @param size The number of entries, rounded up to a power of two.
+     */
+    public EvalCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size - 1, 1)) << 1;
+        entries = new AtomicLongArray(capacity);
+        mask = capacity - 1;
+        hits = new LongAdder();
+        misses = new LongAdder();
+    }
+
+    /**
+     * Returns the evaluation cache shared by searches that are not given their own.
+     * @return The shared evaluation cache.
+     */
+    public static EvalCache getShared() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the cached score of the board with the given Zobrist key, or MISS if there is none.
+     */
+    int probe(long zobristKey) {
+        long entry = entries.getOpaque((int) zobristKey & mask);
+        if ((int) (entry >>> 32) == (int) (zobristKey >>> 32) && entry != 0) {
+            hits.increment();
+            return (int) entry;
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    /**
+     * Stores the score of the board with the given Zobrist key, replacing any entry in its slot.
+     */
+    void store(long zobristKey, int score) {
+        entries.setOpaque((int) zobristKey & mask, (zobristKey & 0xFFFFFFFF00000000L) | (score & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Removes all entries and resets the counters.
+     */
+    public void clear() {
+        for (int i = 0; i < entries.length(); i++) {
+            entries.setOpaque(i, 0);
+        }
+        hits.reset();
+        misses.reset();
+    }
+
+    public int getSize() {
+        return entries.length();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of probes that found a cached score.
+     * @return The fraction of probes that found a cached score, or 0 if there were no probes.
+     */
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
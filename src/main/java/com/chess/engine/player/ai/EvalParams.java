@@ -0,0 +1,202 @@
+package com.chess.engine.player.ai;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Represents the values of the hand-set parameters of the classic evaluation.
+ * The defaults can be overridden by a tuned resource, with one line per parameter: its name followed by its values.
+ */
+public class EvalParams {
+
+    private static final String AI_EVALPARAMS_PATH = "/ai/evalparams.txt";
+    private static final EvalParams DEFAULT = readDefault();
+
+    private final int[][] values; // values of each parameter
+
+    private EvalParams(int[][] values) {
+        this.values = values;
+    }
+
+    /**
+     * Returns the parameters read from the tuned resource, if any, or the built-in defaults otherwise.
+     * @return The default parameters.
+     */
+    public static EvalParams getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the built-in parameters, ignoring any tuned resource.
+     * @return The built-in parameters.
+     */
+    public static EvalParams getBuiltIn() {
+        int[][] values = new int[Param.values().length][];
+        for (Param param : Param.values()) {
+            values[param.ordinal()] = param.defaults.clone();
+        }
+        return new EvalParams(values);
+    }
+
+    /**
+     * Reads the parameters from the tuned resource, if any.
+     */
+    private static EvalParams readDefault() {
+        InputStream in = EvalParams.class.getResourceAsStream(AI_EVALPARAMS_PATH);
+        if (in == null) {
+            return getBuiltIn();
+        }
+        try (in) {
+            return read(in);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return getBuiltIn();
+        }
+    }
+
+    /**
+     * Reads parameters from the given stream. Parameters missing from the stream keep their built-in values.
+     * @param in The stream to read from.
+     * @return The parameters read.
+     * @throws IOException If the stream cannot be read or contains an invalid parameter.
+     */
+    public static EvalParams read(InputStream in) throws IOException {
+        EvalParams params = getBuiltIn();
+        BufferedReader br = new BufferedReader(new InputStreamReader(in));
+        String str;
+
+        while ((str = br.readLine()) != null) {
+            String trimmedStr = str.trim();
+            if (trimmedStr.isEmpty() || trimmedStr.startsWith("#")) continue;
+            String[] tokens = trimmedStr.split("\\s+");
+            Param param;
+            try {
+                param = Param.valueOf(tokens[0]);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid parameter " + tokens[0]);
+            }
+            if (tokens.length - 1 != param.defaults.length) {
+                throw new IOException("Invalid number of values for " + param);
+            }
+            for (int i = 1; i < tokens.length; i++) {
+                try {
+                    params.values[param.ordinal()][i - 1] = Integer.parseInt(tokens[i]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid value for " + param);
+                }
+            }
+        }
+
+        return params;
+    }
+
+    /**
+     * Writes these parameters to the given writer in the format read by read().
+     * @param writer The writer to write to.
+     */
+    public void write(Writer writer) {
+        PrintWriter pw = new PrintWriter(writer);
+        for (Param param : Param.values()) {
+            pw.print(param);
+            for (int value : values[param.ordinal()]) {
+                pw.print(" " + value);
+            }
+            pw.println();
+        }
+        pw.flush();
+    }
+
+    /**
+     * Returns a copy of these parameters with the given value of the given parameter replaced.
+     * @param param The parameter to replace.
+     * @param index The index of the value to replace.
+     * @param value The new value.
+     * @return A copy of these parameters with the given value replaced.
+     */
+    public EvalParams with(Param param, int index, int value) {
+        int[][] newValues = new int[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            newValues[i] = values[i].clone();
+        }
+        newValues[param.ordinal()][index] = value;
+        return new EvalParams(newValues);
+    }
+
+    /**
+     * Returns the (first) value of the given parameter.
+     */
+    public int get(Param param) {
+        return values[param.ordinal()][0];
+    }
+
+    /**
+     * Returns the value at the given index of the given parameter.
+     */
+    public int get(Param param, int index) {
+        return values[param.ordinal()][index];
+    }
+
+    /**
+     * Returns a copy of the values of the given parameter.
+     */
+    public int[] getValues(Param param) {
+        return values[param.ordinal()].clone();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof EvalParams)) {
+            return false;
+        }
+        return Arrays.deepEquals(values, ((EvalParams) obj).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.deepHashCode(values);
+    }
+
+    /**
+     * Represents a parameter of the classic evaluation with its built-in values.
+     * Divisors are not tunable as the evaluation is not smooth in them.
+     */
+    public enum Param {
+        GENERAL_PENALTY(true, 100),
+        CHARIOT_BONUS(true, 50),
+        CANNON_HORSE_BONUS(true, 20),
+        DEFENSE_BONUS_FACTOR(false, 60),
+        CANNON_ELEPHANT_BONUS(true, 100),
+        CHARIOT_ADVISOR_BONUS(true, 400),
+        CHARIOT_PIN_FACTOR(false, 7),
+        CANNON_PIN_FACTOR(false, 5),
+        CANNON_HOLLOW_BONUS(true, 400, 400, 400, 375, 350, 325, 300, 0, 0, 0),
+        CANNON_CENTRAL_BONUS(true, 150, 150, 150, 175, 200, 225, 250, 0, 0, 0),
+        CANNON_CENTRAL_REDUCTION(false, 4),
+        CANNON_CHARIOT_BONUS(true, 100),
+        CANNON_BOTTOM_BONUS(true, 200, 150, 0, 0, 0, 0, 0, 150, 200);
+
+        private final boolean isTunable;
+        private final int[] defaults;
+
+        Param(boolean isTunable, int... defaults) {
+            this.isTunable = isTunable;
+            this.defaults = defaults;
+        }
+
+        public boolean isTunable() {
+            return isTunable;
+        }
+
+        public int getSize() {
+            return defaults.length;
+        }
+    }
+}
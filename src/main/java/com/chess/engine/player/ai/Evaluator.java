@@ -0,0 +1,35 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+
+/**
+ * Represents a heuristic evaluation of a board, injected into a search through its settings.
+ */
+public interface Evaluator {
+
+    /**
+     * Returns the heuristic value of the given board, which should not be in checkmate.
+     * The higher the value, the better for the red player.
+     * @param board The current board.
+     * @return The heuristic value of the given board.
+     */
+    int evaluate(Board board);
+
+    /**
+     * Returns an evaluator for the given board, which is then only changed by making and undoing moves.
+     * Evaluators that keep incremental state for a board create it here; others return themselves.
+     * @param board The board to be searched.
+     * @return An evaluator for the given board.
+     */
+    default Evaluator attach(Board board) {
+        return this;
+    }
+
+    /**
+     * Releases the state this evaluator, as returned by attach, keeps for the given board,
+     * once the board is no longer searched. Evaluators without such state do nothing.
+     * @param board The board that was searched.
+     */
+    default void detach(Board board) {
+    }
+}
@@ -14,12 +14,25 @@ public class FixedDepthSearch extends MiniMax {
     private final int searchDepth;
 
     public FixedDepthSearch(Board board, Collection<Move> legalMoves, int searchDepth) {
-        super(board, legalMoves, searchDepth > 6);
+        this(board, legalMoves, searchDepth, SearchConfig.getDefault());
+    }
+
+    /**
+     * Creates a fixed-depth search with the given settings.
+     * If more than one line is requested, the lines are available through {@link #getSearchLines()}.
+     * The search can be cut short through {@link #stop()} or {@link #setEndTime(long)}.
+     */
+    public FixedDepthSearch(Board board, Collection<Move> legalMoves, int searchDepth, SearchConfig config) {
+        super(board, legalMoves, searchDepth > 6, config);
         this.searchDepth = searchDepth;
     }
 
     @Override
-    public Move search() {
+    Move searchBoard() {
+        Move tablebaseMove = searchTablebases();
+        if (tablebaseMove != null) {
+            return tablebaseMove;
+        }
         MoveEntry bestMoveEntry = null;
 
         int alpha = NEG_INF;
@@ -27,11 +40,17 @@ public class FixedDepthSearch extends MiniMax {
         int currDepth = 1;
         List<MoveEntry> oldMoveEntries = getLegalMoveEntries(); // initialise move entries (simple-sorted)
 
-        while (currDepth <= searchDepth) {
+        while (currDepth <= searchDepth && (currDepth == 1 || !isTimeUp())) {
             // get value-sorted move entries for the current depth (best move at the front)
-            List<MoveEntry> newMoveEntries = alphaBetaRoot(oldMoveEntries, currDepth, alpha, beta);
+            List<MoveEntry> newMoveEntries;
+            try {
+                newMoveEntries = alphaBetaRoot(oldMoveEntries, currDepth, alpha, beta);
+            } catch (SearchStoppedException e) { // fall back to the last completed iteration
+                return getStoppedMove();
+            }
             bestMoveEntry = newMoveEntries.get(0);
             if (newMoveEntries.size() == 1) {
+                updateSearchInfo(currDepth, newMoveEntries);
                 return bestMoveEntry.move;
             }
 
@@ -41,9 +60,17 @@ public class FixedDepthSearch extends MiniMax {
                 beta = POS_INF;
                 continue;
             }
-            // narrow aspiration window
-            alpha = bestVal - ASP;
-            beta = bestVal + ASP;
+            updateSearchInfo(currDepth, newMoveEntries);
+            if (isCheckmateFound(bestVal, currDepth)) {
+                return bestMoveEntry.move;
+            }
+            if (isFullWindow(bestVal)) { // keep full window for checkmate values and multiple lines
+                alpha = NEG_INF;
+                beta = POS_INF;
+            } else { // narrow aspiration window
+                alpha = bestVal - ASP;
+                beta = bestVal + ASP;
+            }
 
             oldMoveEntries = newMoveEntries;
             currDepth++;
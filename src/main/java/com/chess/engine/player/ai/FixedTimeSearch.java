@@ -3,30 +3,38 @@ package com.chess.engine.player.ai;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
 
-import java.beans.PropertyChangeSupport;
+import java.beans.PropertyChangeListener;
 import java.util.Collection;
 import java.util.List;
 
-import static com.chess.gui.Table.*;
-
 /**
  * Represents a fixed-time MiniMax algorithm.
  */
 public class FixedTimeSearch extends MiniMax {
 
-    private final PropertyChangeSupport support;
-    private final long endTime;
+    public FixedTimeSearch(Board board, Collection<Move> legalMoves,
+                           PropertyChangeListener listener, long endTime) {
+        this(board, legalMoves, listener, endTime, SearchConfig.getDefault());
+    }
 
+    /**
+     * Creates a fixed-time search with the given settings.
+     * The given listener is notified with the search information of every completed iteration.
+     * The end time can be changed later through {@link #setEndTime(long)}, e.g. when pondering ends.
+     */
     public FixedTimeSearch(Board board, Collection<Move> legalMoves,
-                           FixedTimeAIPlayer fixedTimeAIPlayer, long endTime) {
-        super(board, legalMoves, true);
-        this.endTime = endTime;
-        support = new PropertyChangeSupport(this);
-        support.addPropertyChangeListener(fixedTimeAIPlayer);
+                           PropertyChangeListener listener, long endTime, SearchConfig config) {
+        super(board, legalMoves, true, config);
+        setEndTime(endTime);
+        addPropertyChangeListener(listener);
     }
 
     @Override
-    public Move search() {
+    Move searchBoard() {
+        Move tablebaseMove = searchTablebases();
+        if (tablebaseMove != null) {
+            return tablebaseMove;
+        }
         MoveEntry bestMoveEntry = null;
 
         int alpha = NEG_INF;
@@ -34,9 +42,14 @@ public class FixedTimeSearch extends MiniMax {
         int currDepth = 1;
         List<MoveEntry> oldMoveEntries = getLegalMoveEntries(); // initialise move entries (simple-sorted)
 
-        while (System.currentTimeMillis() < endTime) {
+        while ((currDepth == 1 || !isTimeUp()) && currDepth < MAX_PLY) {
             // get value-sorted move entries for the current depth (best move at the front)
-            List<MoveEntry> newMoveEntries = alphaBetaRoot(oldMoveEntries, currDepth, alpha, beta);
+            List<MoveEntry> newMoveEntries;
+            try {
+                newMoveEntries = alphaBetaRoot(oldMoveEntries, currDepth, alpha, beta);
+            } catch (SearchStoppedException e) { // fall back to the last completed iteration
+                return getStoppedMove();
+            }
             bestMoveEntry = newMoveEntries.get(0);
 
             int bestVal = bestMoveEntry.val;
@@ -45,12 +58,19 @@ public class FixedTimeSearch extends MiniMax {
                 beta = POS_INF;
                 continue;
             }
-            // narrow aspiration window
-            alpha = bestVal - ASP;
-            beta = bestVal + ASP;
+            if (isFullWindow(bestVal)) { // keep full window for checkmate values and multiple lines
+                alpha = NEG_INF;
+                beta = POS_INF;
+            } else { // narrow aspiration window
+                alpha = bestVal - ASP;
+                beta = bestVal + ASP;
+            }
 
-            // notify AI with current best move
-            support.firePropertyChange("currbestmove", currDepth, bestMoveEntry.move);
+            // notify AI with current best move and principal variation
+            updateSearchInfo(currDepth, newMoveEntries);
+            if (isCheckmateFound(bestVal, currDepth)) {
+                break;
+            }
             oldMoveEntries = newMoveEntries;
             currDepth++;
         }
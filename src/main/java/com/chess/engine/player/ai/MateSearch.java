@@ -0,0 +1,195 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Represents a search for a forced checkmate ("mate in N").
+ * Only checking moves are searched for the attacking player, while all legal moves are searched for the defender.
+ * The search is depth-first with iterative deepening on the number of attacking moves,
+ * so the first checkmate found is the fastest one.
+ */
+public class MateSearch {
+
+    private static final int TT_SIZE = 100003; // transposition table size
+
+    private final Board board;
+    private final int maxMoves;
+    private final MateTable mateTable;
+    private long nodes;
+
+    /**
+     * @param board The board to search, with the attacking player to move. It is not modified.
+     * @param maxMoves The maximum number of attacking moves to search.
+     */
+    public MateSearch(Board board, int maxMoves) {
+        this.board = board.getCopy();
+        this.maxMoves = maxMoves;
+        mateTable = new MateTable();
+    }
+
+    /**
+     * Returns the fastest mating line, if any, within the maximum number of attacking moves.
+     * The defender's moves in the line delay the checkmate for as long as possible.
+     * @return The fastest mating line, if any, starting with the attacking player's move.
+     */
+    public Optional<List<Move>> search() {
+        for (int moves = 1; moves <= maxMoves; moves++) {
+            if (attack(moves)) {
+                List<Move> line = new ArrayList<>();
+                collectLine(moves, line);
+                return Optional.of(Collections.unmodifiableList(line));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the number of nodes searched so far.
+     * @return The number of nodes searched so far.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Checks if the current player can force a checkmate within the given number of moves.
+     * The best attacking move, if any, is stored in the table.
+     */
+    private boolean attack(int moves) {
+        nodes++;
+        long zobristKey = board.getZobristKey();
+        MateEntry entry = mateTable.getEntry(zobristKey);
+        if (entry != null) {
+            if (entry.bestMove != null && entry.moves <= moves) {
+                return true;
+            }
+            if (entry.bestMove == null && entry.moves >= moves) {
+                return false;
+            }
+        }
+
+        for (Move move : MiniMax.MoveSorter.simpleSort(board.getCurrPlayer().getLegalMoves())) {
+            board.makeMove(move);
+            boolean isMate = board.isStateAllowed() && board.getCurrPlayer().isInCheck() && defend(moves);
+            board.unmakeMove(move);
+
+            if (isMate) {
+                mateTable.storeEntry(new MateEntry(zobristKey, moves, move));
+                return true;
+            }
+        }
+
+        mateTable.storeEntry(new MateEntry(zobristKey, moves, null));
+        return false;
+    }
+
+    /**
+     * Checks if the current (defending) player is checkmated within the given number of attacking moves,
+     * including the move that has just been made.
+     */
+    private boolean defend(int moves) {
+        nodes++;
+        for (Move move : board.getCurrPlayer().getLegalMoves()) {
+            board.makeMove(move);
+            boolean isEscape = board.isStateAllowed() && (moves == 1 || !attack(moves - 1));
+            board.unmakeMove(move);
+
+            if (isEscape) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the mating line of the given length from the current board to the given list.
+     */
+    private void collectLine(int moves, List<Move> line) {
+        attack(moves);
+        Move attackingMove = mateTable.getEntry(board.getZobristKey()).bestMove;
+        line.add(attackingMove);
+        board.makeMove(attackingMove);
+
+        // choose the defending move that delays the checkmate for the longest
+        Move defendingMove = null;
+        int longestMoves = 0;
+        for (Move move : board.getCurrPlayer().getLegalMoves()) {
+            board.makeMove(move);
+            if (board.isStateAllowed()) {
+                int mateMoves = 1;
+                while (mateMoves < moves - 1 && !attack(mateMoves)) {
+                    mateMoves++;
+                }
+                if (mateMoves > longestMoves) {
+                    longestMoves = mateMoves;
+                    defendingMove = move;
+                }
+            }
+            board.unmakeMove(move);
+        }
+
+        if (defendingMove != null) {
+            line.add(defendingMove);
+            board.makeMove(defendingMove);
+            collectLine(longestMoves, line);
+            board.unmakeMove(defendingMove);
+        }
+        board.unmakeMove(attackingMove);
+    }
+
+    /**
+     * Represents a table of proven results, separate from the transposition table of MiniMax.
+     */
+    private static class MateTable {
+
+        private final MateEntry[] arr;
+
+        private MateTable() {
+            arr = new MateEntry[TT_SIZE];
+        }
+
+        /**
+         * Returns an entry given the Zobrist key.
+         */
+        private MateEntry getEntry(long zobristKey) {
+            int index = (int) Math.abs(zobristKey % TT_SIZE);
+            MateEntry entry = arr[index];
+            if (entry != null && entry.zobristKey == zobristKey) {
+                return entry;
+            } else {
+                return null;
+            }
+        }
+
+        /**
+         * Stores the given entry into this table.
+         */
+        private void storeEntry(MateEntry entry) {
+            int index = (int) Math.abs(entry.zobristKey % TT_SIZE);
+            arr[index] = entry;
+        }
+    }
+
+    /**
+     * Represents a proven result: a checkmate within the given number of moves if there is a best move,
+     * or no checkmate within the given number of moves otherwise.
+     */
+    private static class MateEntry {
+
+        private final long zobristKey;
+        private final int moves;
+        private final Move bestMove;
+
+        private MateEntry(long zobristKey, int moves, Move bestMove) {
+            this.zobristKey = zobristKey;
+            this.moves = moves;
+            this.bestMove = bestMove;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+
+/**
+ * Represents an evaluation of a board by its tapered piece values only, for fast analysis.
+ */
+public class MaterialEvaluator implements Evaluator {
+
+    private static final MaterialEvaluator INSTANCE = new MaterialEvaluator();
+
+    private MaterialEvaluator() {
+    }
+
+    /**
+     * Returns the material-only evaluator.
+     * @return The material-only evaluator.
+     */
+    public static MaterialEvaluator getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        return BoardEvaluator.getMaterialScore(board, BoardEvaluator.getPhase(board));
+    }
+}
@@ -2,42 +2,139 @@ package com.chess.engine.player.ai;
 
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Move;
+import com.chess.engine.tablebase.Tablebase;
+import com.chess.engine.tablebase.Tablebases;
 
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.OptionalInt;
+import java.util.Random;
 
 /**
  * Represents a MiniMax algorithm.
  */
-abstract class MiniMax {
+public abstract class MiniMax {
 
     static final int NEG_INF = Integer.MIN_VALUE + 1; // represents negative infinity
     static final int POS_INF = Integer.MAX_VALUE; // represents positive infinity
     static final int ASP = 50; // aspiration window
+    static final int MAX_PLY = 64; // maximum search ply tracked by the PV table
     private static final int R_LOW = 2; // low depth reduction
     private static final int R_HIGH = 3; // high depth reduction
-    private static final int TT_SIZE = 1000003; // transposition table size
+    private static final int IID_DEPTH = 3; // minimum depth for internal iterative deepening
+    private static final int IID_REDUCTION = 2; // depth reduction for internal iterative deepening
+    private static final int RANDOM_BOUND = 10; // exclusive bound of random values added to evaluations
+    private static final int STOP_CHECK_MASK = 1023; // the stop condition is checked every 1024 nodes
 
     private final Board startBoard; // initial board
     private final List<Move> legalMoves; // initial legal moves (simple-sorted)
     private final TTable tTable; // transposition table
     private final int R; // variable depth reduction for null move pruning
-
-    MiniMax(Board startBoard, Collection<Move> legalMoves, boolean high) {
+    private final int numLines; // number of root moves with exact values and lines (multi-PV)
+    private final Evaluator evaluator; // evaluator attached to the initial board
+    private final Random rand; // random number generator of this search, if randomised
+    private final Tablebases tablebases; // tablebases probed once few pieces are left, if any
+    private final Move[][] pvTable; // triangular PV table, indexed by ply
+    private final int[] pvLength; // PV length at each ply
+    private final long startTime; // time at which this search was created
+    private List<Move> prevPv; // principal variation of the previous iteration
+    private boolean followPv; // whether the current node lies on the previous PV
+    private long nodes; // number of nodes searched
+    private final PropertyChangeSupport support; // notified of the search information of completed iterations
+    private List<SearchInfo> searchLines; // information of the best lines of the last completed iteration
+    private volatile long endTime; // time after which this search stops
+    private volatile boolean isStopped; // whether this search has been asked to stop
+
+    MiniMax(Board startBoard, Collection<Move> legalMoves, boolean high, SearchConfig config) {
         this.startBoard = startBoard;
         this.legalMoves = MoveSorter.simpleSort(legalMoves);
-        tTable = new TTable();
+        tTable = new TTable(config.getTTSize());
         R = high ? R_HIGH : R_LOW;
+        numLines = Math.max(config.getNumLines(), 1);
+        evaluator = config.getEvaluator().attach(startBoard);
+        rand = config.isRandomised() ? new Random(config.getSeed()) : null;
+        tablebases = config.getTablebases();
+        pvTable = new Move[MAX_PLY][MAX_PLY];
+        pvLength = new int[MAX_PLY];
+        startTime = System.currentTimeMillis();
+        prevPv = Collections.emptyList();
+        searchLines = Collections.emptyList();
+        support = new PropertyChangeSupport(this);
+        endTime = Long.MAX_VALUE;
     }
 
     /**
      * Returns the best move using the corresponding MiniMax algorithm.
+     * A search runs once: its evaluator is detached from the initial board when it finishes.
      * @return The best move using the corresponding MiniMax algorithm.
      */
-    public abstract Move search();
+    public Move search() {
+        try {
+            return searchBoard();
+        } finally {
+            evaluator.detach(startBoard);
+        }
+    }
+
+    /**
+     * Returns the best move on the initial board using the corresponding MiniMax algorithm.
+     */
+    abstract Move searchBoard();
+
+    /**
+     * Adds a listener that is notified with the search information of every completed iteration.
+     * @param listener The listener to add.
+     */
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        support.addPropertyChangeListener(listener);
+    }
+
+    /**
+     * Sets the time after which this search stops, which may be changed while the search is running.
+     * @param endTime The time after which this search stops, in milliseconds since the epoch.
+     */
+    public void setEndTime(long endTime) {
+        this.endTime = endTime;
+    }
+
+    /**
+     * Asks this search to stop as soon as possible. It may be called from any thread.
+     * The search then returns the best move of the last completed iteration, leaving its board
+     * in an unspecified state; a search that must be stopped should be given a copy of the board.
+     */
+    public void stop() {
+        isStopped = true;
+    }
+
+    /**
+     * Checks if this search should stop before starting another iteration.
+     * @return true if this search has been stopped or has run out of time, false otherwise.
+     */
+    boolean isTimeUp() {
+        return isStopped || System.currentTimeMillis() >= endTime;
+    }
+
+    /**
+     * Aborts the current iteration if this search should stop and an earlier iteration has completed.
+     */
+    private void checkStop() {
+        if ((nodes & STOP_CHECK_MASK) == 0 && !searchLines.isEmpty() && isTimeUp()) {
+            throw SearchStoppedException.INSTANCE;
+        }
+    }
+
+    /**
+     * Returns the best move of the last completed iteration after the current iteration was aborted.
+     * @return The best move of the last completed iteration.
+     */
+    Move getStoppedMove() {
+        return getSearchInfo().getBestMove();
+    }
 
     /**
      * Returns a simple-sorted list of move entries of the initial legal moves.
@@ -51,8 +148,164 @@ abstract class MiniMax {
         return Collections.unmodifiableList(legalMoveEntries);
     }
 
+    /**
+     * Records the search information of the best lines of the last completed root search
+     * and notifies the listeners with that of the best line.
+     * @param depth The depth of the last root search.
+     * @param moveEntries The value-sorted list of move entries of the last root search.
+     * @return The search information of the best line of the last completed root search.
+     */
+    SearchInfo updateSearchInfo(int depth, List<MoveEntry> moveEntries) {
+        long time = System.currentTimeMillis() - startTime;
+        List<SearchInfo> lines = new ArrayList<>();
+        for (int i = 0; i < Math.min(numLines, moveEntries.size()); i++) {
+            MoveEntry moveEntry = moveEntries.get(i);
+            lines.add(new SearchInfo(depth, moveEntry.val, nodes, time, moveEntry.pv));
+        }
+        searchLines = Collections.unmodifiableList(lines);
+        support.firePropertyChange("currbestmove", null, searchLines.get(0));
+        return searchLines.get(0);
+    }
+
+    /**
+     * Returns the search information of the last completed iteration, if any.
+     * @return The search information of the last completed iteration, or null if there is none.
+     */
+    public SearchInfo getSearchInfo() {
+        return searchLines.isEmpty() ? null : searchLines.get(0);
+    }
+
+    /**
+     * Returns the search information of the best lines of the last completed iteration, best line first.
+     * The values and lines are exact for up to the requested number of lines.
+     * @return The search information of the best lines of the last completed iteration.
+     */
+    public List<SearchInfo> getSearchLines() {
+        return searchLines;
+    }
+
+    /**
+     * Checks if the aspiration window should be fully open around the given value of the best move.
+     * @param val The value of the best move at the root.
+     * @return true if the aspiration window should be fully open, false otherwise.
+     */
+    boolean isFullWindow(int val) {
+        return numLines > 1 || BoardEvaluator.isCheckmateValue(val);
+    }
+
+    /**
+     * Checks if the given root value is a checkmate for the current player found within the given depth.
+     * Deeper searches cannot find a faster checkmate than this.
+     * @param val The value of the best move at the root.
+     * @param depth The search depth.
+     * @return true if the given value is a checkmate found within the given depth, false otherwise.
+     */
+    static boolean isCheckmateFound(int val, int depth) {
+        return val > 0 && BoardEvaluator.isCheckmateValue(val) && BoardEvaluator.getCheckmatePly(val) <= depth;
+    }
+
+    /**
+     * Returns the best move of the initial board according to the tablebases, if the board is won or lost in them:
+     * the move that checkmates fastest, or that is checkmated slowest. Drawn boards are left to the search.
+     * The search information is recorded with the line of the best move in which both players follow the tablebases.
+     * @return The best move according to the tablebases, or null if the initial board is not won or lost in them.
+     */
+    Move searchTablebases() {
+        OptionalInt rootVal = probeTablebases(startBoard, 0);
+        if (!rootVal.isPresent() || rootVal.getAsInt() == 0) {
+            return null;
+        }
+
+        List<MoveEntry> moveEntries = new ArrayList<>();
+        for (Move move : legalMoves) {
+            startBoard.makeMove(move);
+            if (startBoard.isStateAllowed()) {
+                OptionalInt val = probeTablebases(startBoard, 1);
+                if (!val.isPresent()) {
+                    startBoard.unmakeMove(move);
+                    return null;
+                }
+                moveEntries.add(new MoveEntry(move, -val.getAsInt()));
+            }
+            startBoard.unmakeMove(move);
+        }
+        if (moveEntries.isEmpty()) {
+            return null;
+        }
+
+        moveEntries.sort(MoveSorter.MOVE_ENTRY_COMPARATOR);
+        MoveEntry bestMoveEntry = moveEntries.get(0);
+        List<Move> pv = getTablebaseLine(bestMoveEntry.move);
+        moveEntries.set(0, new MoveEntry(bestMoveEntry.move, bestMoveEntry.val, pv));
+        updateSearchInfo(pv.size(), moveEntries);
+
+        return bestMoveEntry.move;
+    }
+
+    /**
+     * Returns the line from the initial board starting with the given move, in which both players then follow
+     * the tablebases until checkmate.
+     */
+    private List<Move> getTablebaseLine(Move firstMove) {
+        List<Move> line = new ArrayList<>();
+        Move move = firstMove;
+        while (move != null && line.size() < MAX_PLY) {
+            startBoard.makeMove(move);
+            line.add(move);
+            move = getTablebaseMove(startBoard);
+        }
+        for (int i = line.size() - 1; i >= 0; i--) {
+            startBoard.unmakeMove(line.get(i));
+        }
+        return Collections.unmodifiableList(line);
+    }
+
+    /**
+     * Returns the best move of the given board according to the tablebases, or null if there is none.
+     */
+    private Move getTablebaseMove(Board board) {
+        Move bestMove = null;
+        int bestVal = NEG_INF;
+        for (Move move : board.getAllowedMoves()) {
+            board.makeMove(move);
+            OptionalInt val = probeTablebases(board, 1);
+            board.unmakeMove(move);
+            if (!val.isPresent()) {
+                return null;
+            }
+            if (-val.getAsInt() > bestVal) {
+                bestVal = -val.getAsInt();
+                bestMove = move;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Returns the exact value of the given board at the given ply from the tablebases, if the board is found
+     * in them and any checkmate is within the range of checkmate values.
+     */
+    private OptionalInt probeTablebases(Board board, int ply) {
+        if (tablebases == null) {
+            return OptionalInt.empty();
+        }
+        OptionalInt tablebaseVal = tablebases.probe(board);
+        if (!tablebaseVal.isPresent() || tablebaseVal.getAsInt() == Tablebase.DRAW) {
+            return tablebaseVal;
+        }
+
+        int checkmatePly = ply + Tablebase.getDistance(tablebaseVal.getAsInt());
+        if (checkmatePly > BoardEvaluator.MAX_CHECKMATE_PLY) {
+            return OptionalInt.empty();
+        }
+        int val = BoardEvaluator.getCheckmateValue(checkmatePly);
+        return OptionalInt.of(Tablebase.isWin(tablebaseVal.getAsInt()) ? -val : val);
+    }
+
     /**
      * The root method of alpha-beta search.
+     * Moves that may be among the best lines are searched with a window whose lower bound is the value of
+     * the worst of the best lines so far, so that their values are exact.
      * @param oldMoveEntries The list of move entries to search, with the best move at the front.
      * @param depth The search depth.
      * @param alpha The lower bound.
@@ -63,30 +316,46 @@ abstract class MiniMax {
         List<MoveEntry> newMoveEntries = new ArrayList<>();
         MoveEntry bestMoveEntry = null;
         int bestVal = NEG_INF;
-        int searchedMoves = 0;
+        List<Integer> lineVals = new ArrayList<>(); // values of the best lines so far, in descending order
 
         for (MoveEntry moveEntry : oldMoveEntries) {
             Move move = moveEntry.move;
             startBoard.makeMove(move);
             if (startBoard.isStateAllowed()) {
                 int val;
-                if (searchedMoves == 0) { // search best move with full window
-                    val = -alphaBeta(startBoard, depth - 1, -beta, -alpha, true);
+                followPv = !prevPv.isEmpty() && move.equals(prevPv.get(0));
+                if (lineVals.size() < numLines) { // search best moves with full window
+                    val = -alphaBeta(startBoard, depth - 1, 1, -beta, -alpha, true);
                 } else { // search remaining moves with null window
-                    val = -alphaBeta(startBoard, depth - 1, -alpha - 1, -alpha, true);
-                    if (val > alpha && val < beta) { // research with full window
-                        val = -alphaBeta(startBoard, depth - 1, -beta, -alpha, true);
+                    int bound = Math.max(alpha, lineVals.get(numLines - 1));
+                    val = -alphaBeta(startBoard, depth - 1, 1, -bound - 1, -bound, true);
+                    if (val > bound && val < beta) { // research with full window
+                        val = -alphaBeta(startBoard, depth - 1, 1, -beta, -bound, true);
                     }
                 }
+                List<Move> pv = new ArrayList<>();
+                pv.add(move);
+                for (int i = 1; i < pvLength[1]; i++) {
+                    pv.add(pvTable[1][i]);
+                }
+                MoveEntry newMoveEntry = new MoveEntry(move, val, Collections.unmodifiableList(pv));
                 if (val > bestVal) {
                     bestVal = val;
-                    bestMoveEntry = moveEntry;
-                    alpha = Math.max(alpha, val);
+                    bestMoveEntry = newMoveEntry;
                 }
-                newMoveEntries.add(new MoveEntry(move, val));
+                int index = 0;
+                while (index < lineVals.size() && lineVals.get(index) >= val) {
+                    index++;
+                }
+                if (index < numLines) {
+                    lineVals.add(index, val);
+                    if (lineVals.size() > numLines) {
+                        lineVals.remove(numLines);
+                    }
+                }
+                newMoveEntries.add(newMoveEntry);
             }
             startBoard.unmakeMove(move);
-            searchedMoves++;
         }
         assert bestMoveEntry != null;
 
@@ -100,6 +369,7 @@ abstract class MiniMax {
             }
         }
         Collections.swap(newMoveEntries, 0, bestIndex);
+        prevPv = bestMoveEntry.pv;
 
         return Collections.unmodifiableList(newMoveEntries);
     }
@@ -108,13 +378,25 @@ abstract class MiniMax {
      * The inner method of alpha-beta search.
      * @param board The current board.
      * @param depth The current depth.
+     * @param ply The distance from the root.
      * @param alpha The current lower bound.
      * @param beta The current upper bound.
      * @param allowNull Whether a null move is allowed here.
      */
-    private int alphaBeta(Board board, int depth, int alpha, int beta, boolean allowNull) {
-        int alphaOrig = alpha;
+    private int alphaBeta(Board board, int depth, int ply, int alpha, int beta, boolean allowNull) {
         Move bestMove = null;
+        nodes++;
+        checkStop();
+        pvLength[ply] = ply;
+        Move pvMove = getPvMove(board, ply);
+
+        // mate distance pruning
+        alpha = Math.max(alpha, BoardEvaluator.getCheckmateValue(ply));
+        beta = Math.min(beta, -BoardEvaluator.getCheckmateValue(ply + 1));
+        if (alpha >= beta) {
+            return alpha;
+        }
+        int alphaOrig = alpha;
 
         // look up transposition table
         long zobristKey = board.getZobristKey();
@@ -122,43 +404,65 @@ abstract class MiniMax {
         if (ttEntry != null) {
             bestMove = ttEntry.bestMove;
             if (ttEntry.depth >= depth) {
+                int ttVal = valueFromTT(ttEntry.val, ply);
                 switch (ttEntry.flag) {
                     case EXACT:
-                        return ttEntry.val;
+                        return ttVal;
                     case LOWERBOUND:
-                        alpha = Math.max(alpha, ttEntry.val);
+                        alpha = Math.max(alpha, ttVal);
                         break;
                     case UPPERBOUND:
-                        beta = Math.min(beta, ttEntry.val);
+                        beta = Math.min(beta, ttVal);
                         break;
                 }
                 if (alpha >= beta) {
-                    return ttEntry.val;
+                    return ttVal;
                 }
             }
         }
 
+        // probe tablebases, whose values are exact
+        OptionalInt tablebaseVal = probeTablebases(board, ply);
+        if (tablebaseVal.isPresent()) {
+            int val = tablebaseVal.getAsInt();
+            tTable.storeEntry(new TTEntry(zobristKey, MAX_PLY, valueToTT(val, ply), Flag.EXACT, null));
+            return val;
+        }
+
+        if (pvMove != null) { // previous PV move takes precedence over hash move
+            bestMove = pvMove;
+        }
+
         // evaluate board
-        int color = board.getCurrPlayer().getAlliance().isRed() ? 1 : -1;
         if (depth <= 0) {
-            int val = quiescence(board, -beta, -alpha);
+            int val = quiescence(board, ply, -beta, -alpha);
             if (ttEntry == null) {
-                tTable.storeEntry(new TTEntry(zobristKey, 0, val, Flag.EXACT, null));
+                tTable.storeEntry(new TTEntry(zobristKey, 0, valueToTT(val, ply), Flag.EXACT, null));
             }
             return val;
         }
         if (board.isCurrPlayerCheckmated()) {
-            return BoardEvaluator.getCheckmateValue(board.getCurrPlayer().getAlliance(), depth) * color;
+            return BoardEvaluator.getCheckmateValue(ply);
         }
 
         // null move pruning
         if (allowNull && !board.getCurrPlayer().isInCheck()) {
             board.changeTurn();
-            int val = -alphaBeta(board, depth - 1 - R, -beta, -beta + 1, false);
+            int val = -alphaBeta(board, depth - 1 - R, ply + 1, -beta, -beta + 1, false);
             board.changeTurn();
-            if (val >= beta) {
-                return val;
+            if (val >= beta) { // do not trust unproven checkmates from null move
+                return BoardEvaluator.isCheckmateValue(val) ? beta : val;
+            }
+        }
+
+        // internal iterative deepening at PV nodes without a hash move
+        if (bestMove == null && depth >= IID_DEPTH && beta - alpha > 1) {
+            alphaBeta(board, depth - IID_REDUCTION, ply, alpha, beta, false);
+            TTEntry iidEntry = tTable.getEntry(zobristKey);
+            if (iidEntry != null) {
+                bestMove = iidEntry.bestMove;
             }
+            pvLength[ply] = ply;
         }
 
         // search all moves
@@ -166,13 +470,17 @@ abstract class MiniMax {
         boolean hasBestMove = bestMove != null;
         if (hasBestMove) { // search best move with full window
             board.makeMove(bestMove);
-            int val = -alphaBeta(board, depth - 1, -beta, -alpha, true);
+            followPv = bestMove.equals(pvMove);
+            int val = -alphaBeta(board, depth - 1, ply + 1, -beta, -alpha, true);
             board.unmakeMove(bestMove);
             bestVal = val;
-            alpha = Math.max(alpha, val);
             if (val >= beta) {
                 return val;
             }
+            if (val > alpha) {
+                alpha = val;
+                updatePv(bestMove, ply);
+            }
         }
         for (Move move : MoveSorter.simpleSort(board.getCurrPlayer().getLegalMoves())) {
             if (move.equals(bestMove)) continue;
@@ -181,19 +489,22 @@ abstract class MiniMax {
             if (board.isStateAllowed()) {
                 int val;
                 if (hasBestMove) { // search remaining moves with null window
-                    val = -alphaBeta(board, depth - 1, -alpha - 1, -alpha, true);
+                    val = -alphaBeta(board, depth - 1, ply + 1, -alpha - 1, -alpha, true);
                     if (val > alpha && val < beta) { // research with full window
-                        val = -alphaBeta(board, depth - 1, -beta, -alpha, true);
+                        val = -alphaBeta(board, depth - 1, ply + 1, -beta, -alpha, true);
                     }
                 } else {
-                    val = -alphaBeta(board, depth - 1, -beta, -alpha, true);
+                    val = -alphaBeta(board, depth - 1, ply + 1, -beta, -alpha, true);
                 }
                 if (val > bestVal) {
                     bestVal = val;
                     if (val > alphaOrig) {
                         bestMove = move;
                     }
-                    alpha = Math.max(alpha, val);
+                    if (val > alpha) {
+                        alpha = val;
+                        updatePv(move, ply);
+                    }
                 }
             }
             board.unmakeMove(move);
@@ -213,18 +524,77 @@ abstract class MiniMax {
             } else {
                 flag = Flag.EXACT;
             }
-            tTable.storeEntry(new TTEntry(zobristKey, depth, bestVal, flag, bestMove));
+            tTable.storeEntry(new TTEntry(zobristKey, depth, valueToTT(bestVal, ply), flag, bestMove));
         }
 
         return bestVal;
     }
 
+    /**
+     * Returns the move of the previous PV at the given ply, if the current node lies on the previous PV.
+     */
+    private Move getPvMove(Board board, int ply) {
+        if (!followPv) {
+            return null;
+        }
+        followPv = false;
+        if (ply >= prevPv.size()) {
+            return null;
+        }
+        Move pvMove = prevPv.get(ply);
+        return board.getCurrPlayer().getLegalMoves().contains(pvMove) ? pvMove : null;
+    }
+
+    /**
+     * Updates the PV at the given ply with the given move followed by the PV of the next ply.
+     */
+    private void updatePv(Move move, int ply) {
+        if (ply + 1 >= MAX_PLY) return;
+        pvTable[ply][ply] = move;
+        int nextLength = Math.max(pvLength[ply + 1], ply + 1);
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, nextLength - ply - 1);
+        pvLength[ply] = nextLength;
+    }
+
+    /**
+     * Converts the given value at the given ply into a TT value, which is relative to the stored node.
+     */
+    private static int valueToTT(int val, int ply) {
+        if (!BoardEvaluator.isCheckmateValue(val)) {
+            return val;
+        }
+        return val > 0 ? val + ply : val - ply;
+    }
+
+    /**
+     * Converts the given TT value into a value at the given ply, which is relative to the root.
+     */
+    private static int valueFromTT(int val, int ply) {
+        if (!BoardEvaluator.isCheckmateValue(val)) {
+            return val;
+        }
+        return val > 0 ? val - ply : val + ply;
+    }
+
+    /**
+     * Returns the heuristic value of the given board, randomised if required by the search settings.
+     */
+    private int evaluate(Board board) {
+        int val = evaluator.evaluate(board);
+        return rand == null ? val : val + rand.nextInt(RANDOM_BOUND);
+    }
+
     /**
      * The quiescence call when depth reaches 0.
      */
-    private int quiescence(Board board, int alpha, int beta) {
+    private int quiescence(Board board, int ply, int alpha, int beta) {
+        nodes++;
+        checkStop();
+        if (board.isCurrPlayerCheckmated()) {
+            return BoardEvaluator.getCheckmateValue(ply);
+        }
         int color = board.getCurrPlayer().getAlliance().isRed() ? 1 : -1;
-        int bestVal = BoardEvaluator.evaluate(board) * color; // "stand-pat"
+        int bestVal = evaluate(board) * color; // "stand-pat"
         alpha = Math.max(alpha, bestVal);
         if (alpha >= beta || board.isQuiet()) {
             return bestVal;
@@ -235,7 +605,7 @@ abstract class MiniMax {
 
             board.makeMove(move);
             if (board.isStateAllowed()) {
-                int val = -quiescence(board, -beta, -alpha);
+                int val = -quiescence(board, ply + 1, -beta, -alpha);
                 if (val > bestVal) {
                     bestVal = val;
                     alpha = Math.max(alpha, val);
@@ -251,6 +621,19 @@ abstract class MiniMax {
         return bestVal;
     }
 
+    /**
+     * Thrown to unwind an iteration of a search that has been stopped.
+     */
+    static class SearchStoppedException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+        private static final SearchStoppedException INSTANCE = new SearchStoppedException();
+
+        private SearchStoppedException() {
+            super(null, null, false, false);
+        }
+    }
+
     /**
      * Represents a transposition table (TT).
      */
@@ -258,15 +641,15 @@ abstract class MiniMax {
 
         private final TTEntry[] arr;
 
-        private TTable() {
-            arr = new TTEntry[TT_SIZE];
+        private TTable(int size) {
+            arr = new TTEntry[size];
         }
 
         /**
          * Returns a TT entry given the Zobrist key.
          */
         private TTEntry getEntry(long zobristKey) {
-            int index = (int) Math.abs(zobristKey % TT_SIZE);
+            int index = (int) Math.abs(zobristKey % arr.length);
             TTEntry entry = arr[index];
             if (entry != null && entry.zobristKey == zobristKey) {
                 return entry;
@@ -280,7 +663,7 @@ abstract class MiniMax {
          */
         private void storeEntry(TTEntry entry) {
             if (entry == null) return;
-            int index = (int) Math.abs(entry.zobristKey % TT_SIZE);
+            int index = (int) Math.abs(entry.zobristKey % arr.length);
             arr[index] = entry;
         }
     }
@@ -356,16 +739,22 @@ abstract class MiniMax {
     }
 
     /**
-     * Represents an entry containing a move and its value.
+     * Represents an entry containing a move, its value and its principal variation.
      */
     static class MoveEntry {
 
         final Move move;
         final int val;
+        final List<Move> pv;
 
-        MoveEntry(Move move, int val) {
+        MoveEntry(Move move, int val, List<Move> pv) {
             this.move = move;
             this.val = val;
+            this.pv = pv;
+        }
+
+        MoveEntry(Move move, int val) {
+            this(move, val, Collections.singletonList(move));
         }
     }
 }
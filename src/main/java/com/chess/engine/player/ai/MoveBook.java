@@ -1,113 +1,397 @@
 package com.chess.engine.player.ai;
 
+import com.chess.engine.archive.GameRecord;
 import com.chess.engine.board.Board;
-import com.chess.engine.board.BoardUtil;
 import com.chess.engine.board.Coordinate;
 import com.chess.engine.board.Move;
 
-import java.io.BufferedReader;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Represents an opening book.
+ * Represents an opening book compiled into a binary file. All values are big-endian.
+ * The file holds a header (magic number, version and number of entries) followed by entries of 16 bytes,
+ * sorted by Zobrist key: the key, the move encoded as in game archives, its weight (2 bytes, unsigned)
+ * and its learn value (4 bytes). A book is memory-mapped when it is a file and probed by binary search.
+ * Moves are chosen by their effective weight, i.e. their weight adjusted by their learn value, which is
+ * raised or lowered in memory by the results of games played out of the book.
  */
 public class MoveBook {
 
-    private static final String AI_MOVEBOOK_PATH = "/ai/movebook.txt";
-    private static final Map<Long, List<Move>> MOVE_BOOK = readMoveBook();
-    private static final Random rand = new Random();
-    private static final int INDENT_SPACES = 7;
+    private static final String AI_MOVEBOOK_PATH = "/ai/movebook.bin";
+    private static final int MAGIC = 0x5851424B; // "XQBK"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 16;
+    private static final int MAX_WEIGHT = 0xFFFF;
+    private static final Comparator<Entry> ENTRY_COMPARATOR =
+            Comparator.comparingLong((Entry e) -> e.zobristKey).thenComparing(e -> -e.weight);
+    private static final int LEARN_STEP = 10; // learn value change per game result, in percent of the weight
+    private static final int MIN_LEARN = -100; // learn value at which a move is no longer chosen
+
+    private final ByteBuffer buffer;
+    private final int numEntries;
+    private final Map<Integer, Integer> learnDeltas; // changes of learn values since reading, by entry index
+
+    private MoveBook(ByteBuffer buffer, int numEntries) {
+        this.buffer = buffer;
+        this.numEntries = numEntries;
+        learnDeltas = new ConcurrentHashMap<>();
+    }
 
     /**
-     * Returns a random move in the book, if any, based on the given zobrist key.
-     * @param zobristKey The zobrist key of the board.
-     * @return A random move in the book, if any, based on the given zobrist key.
+     * Returns a book backed by the given buffer, checking its header and size.
      */
-    public static Optional<Move> getRandomMove(long zobristKey) {
-        List<Move> moves = MOVE_BOOK.get(zobristKey);
-        if (moves == null) {
-            return Optional.empty();
+    private static MoveBook of(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Invalid book");
         }
-        return Optional.of(moves.get(rand.nextInt(moves.size())));
+        int numEntries = buffer.getInt(8);
+        if (numEntries < 0 || HEADER_SIZE + (long) numEntries * ENTRY_SIZE != buffer.capacity()) {
+            throw new IOException("Invalid book size");
+        }
+        return new MoveBook(buffer, numEntries);
     }
 
     /**
-     * Reads the text file containing moves into a map.
+     * Returns the book bundled with the application, which is empty if there is none.
+     * @return The book bundled with the application.
      */
-    private static Map<Long, List<Move>> readMoveBook() {
-        Map<Long, List<Move>> boardToMoves = new HashMap<>();
-        Board board = Board.initialiseBoard();
-        List<Move> moveHistory = new ArrayList<>();
-        String str;
-        int currIndentLevel = 0;
-
-        BufferedReader br =
-                new BufferedReader(new InputStreamReader(MoveBook.class.getResourceAsStream(AI_MOVEBOOK_PATH)));
-        try {
-            while ((str = br.readLine()) != null) {
-                String trimmedStr = str.trim();
-                int spaces = str.indexOf(trimmedStr);
-                if (spaces % INDENT_SPACES != 0) {
-                    throw new IOException("Invalid indent");
-                }
-                int indentLevel = str.indexOf(trimmedStr) / INDENT_SPACES;
-                for (int i = 0; i < currIndentLevel - indentLevel; i++) {
-                    Move move = moveHistory.remove(moveHistory.size() - 1);
-                    board.unmakeMove(move);
+    public static MoveBook getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * Returns a move in the default book, if any, on the given board, chosen at random by effective weight.
+     * @param board The current board.
+     * @return A move in the default book, if any, on the given board.
+     */
+    public static Optional<Move> getRandomMove(Board board) {
+        return getDefault().getMove(board, Selection.WEIGHTED);
+    }
+
+    /**
+     * Memory-maps the book at the given file.
+     * @param file The book file.
+     * @return The book at the given file.
+     * @throws IOException If the file cannot be mapped or is not a book.
+     */
+    public static MoveBook open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Reads a book from the given stream onto the heap.
+     * @param in The stream to read from.
+     * @return The book read.
+     * @throws IOException If the stream cannot be read or is not a book.
+     */
+    public static MoveBook read(InputStream in) throws IOException {
+        return of(ByteBuffer.wrap(in.readAllBytes()));
+    }
+
+    /**
+     * Writes all entries of this book, with their current learn values, to the given stream.
+     * @param out The stream to write to.
+     * @throws IOException If the book cannot be written.
+     */
+    public void write(OutputStream out) throws IOException {
+        List<Entry> entries = new ArrayList<>(numEntries);
+        for (int i = 0; i < numEntries; i++) {
+            entries.add(getEntry(i));
+        }
+        write(entries, out);
+    }
+
+    /**
+     * Writes the given entries as a book to the given stream. The entries are sorted by key,
+     * with moves of the same key in descending order of weight.
+     * @param entries The entries of the book.
+     * @param out The stream to write to.
+     * @throws IOException If the book cannot be written.
+     */
+    public static void write(List<Entry> entries, OutputStream out) throws IOException {
+        List<Entry> sortedEntries = new ArrayList<>(entries);
+        sortedEntries.sort(ENTRY_COMPARATOR);
+
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(out));
+        dos.writeInt(MAGIC);
+        dos.writeInt(VERSION);
+        dos.writeInt(sortedEntries.size());
+        for (Entry entry : sortedEntries) {
+            dos.writeLong(entry.zobristKey);
+            dos.writeShort(entry.move);
+            dos.writeShort(entry.weight);
+            dos.writeInt(entry.learn);
+        }
+        dos.flush();
+    }
+
+    /**
+     * Returns a move in this book, if any, on the given board, chosen in the given way
+     * among the moves with a positive effective weight.
+     * @param board The current board.
+     * @param selection The way of choosing among the moves of the board.
+     * @return A move in this book, if any, on the given board.
+     */
+    public Optional<Move> getMove(Board board, Selection selection) {
+        List<Entry> entries = new ArrayList<>();
+        long totalWeight = 0;
+        for (Entry entry : getEntries(board.getZobristKey())) {
+            if (entry.getEffectiveWeight() > 0) {
+                entries.add(entry);
+                totalWeight += entry.getEffectiveWeight();
+            }
+        }
+        if (entries.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Entry chosenEntry = entries.get(0);
+        switch (selection) {
+            case UNIFORM:
+                chosenEntry = entries.get(ThreadLocalRandom.current().nextInt(entries.size()));
+                break;
+            case WEIGHTED:
+                long target = ThreadLocalRandom.current().nextLong(totalWeight);
+                for (Entry entry : entries) {
+                    target -= entry.getEffectiveWeight();
+                    if (target < 0) {
+                        chosenEntry = entry;
+                        break;
+                    }
                 }
-                String[] moveSequence = trimmedStr.split(" ");
-                currIndentLevel = indentLevel + moveSequence.length;
-
-                for (String moveStr : moveSequence) {
-                    long zobristKey = board.getZobristKey();
-                    Optional<Move> move = Move.stringToMove(board, moveStr);
-                    if (move.isPresent()) {
-                        List<Move> currList = boardToMoves.get(zobristKey);
-                        if (currList != null) {
-                            if (!currList.contains(move.get())) {
-                                currList.add(move.get());
-                            }
-                        } else {
-                            List<Move> newList = new ArrayList<>();
-                            newList.add(move.get());
-                            boardToMoves.put(zobristKey, newList);
-                        }
-                        // store mirrored version of move
-                        Board mirrorBoard = board.getMirrorBoard();
-                        long mirrorZobristKey = mirrorBoard.getZobristKey();
-                        Coordinate mirrorSrcPosition = BoardUtil.getMirrorPosition(move.get().getMovedPiece().getPosition());
-                        Coordinate mirrorDestPosition = BoardUtil.getMirrorPosition(move.get().getDestPosition());
-                        Move mirrorMove = mirrorBoard.getMove(mirrorSrcPosition, mirrorDestPosition).get();
-                        List<Move> mirrorCurrList = boardToMoves.get(mirrorZobristKey);
-                        if (mirrorCurrList != null) {
-                            if (!mirrorCurrList.contains(mirrorMove)) {
-                                mirrorCurrList.add(mirrorMove);
-                            }
-                        } else {
-                            List<Move> mirrorNewList = new ArrayList<>();
-                            mirrorNewList.add(mirrorMove);
-                            boardToMoves.put(mirrorZobristKey, mirrorNewList);
-                        }
-                    } else {
-                        throw new IOException("Invalid move");
+                break;
+            case BEST_ONLY:
+                for (Entry entry : entries) {
+                    if (entry.getEffectiveWeight() > chosenEntry.getEffectiveWeight()) {
+                        chosenEntry = entry;
                     }
-                    board.makeMove(move.get());
-                    moveHistory.add(move.get());
                 }
+                break;
+        }
+
+        return toMove(board, chosenEntry);
+    }
+
+    /**
+     * Updates the learn values of the book moves of the given game by its result: the moves of the winner
+     * are raised and those of the loser lowered, until the game leaves the book. Games of other results are ignored.
+     * @param game The game played.
+     */
+    public void learn(GameRecord game) {
+        GameRecord.Result result = game.getResult();
+        if (result != GameRecord.Result.RED_WIN && result != GameRecord.Result.BLACK_WIN) return;
+        Board board = Board.initialiseBoard();
+
+        for (int ply = 0; ply < game.getNumMoves(); ply++) {
+            int index = findEntry(board.getZobristKey(), game.getMove(ply));
+            if (index < 0) break;
+
+            boolean isWinner = board.getCurrPlayer().getAlliance().isRed() == (result == GameRecord.Result.RED_WIN);
+            learnDeltas.merge(index, isWinner ? LEARN_STEP : -LEARN_STEP, Integer::sum);
+
+            Optional<Move> move = GameRecord.decode(board, game.getMove(ply));
+            if (!move.isPresent()) break;
+            board.makeMove(move.get());
+        }
+    }
+
+    /**
+     * Returns the move of the given entry on the given board, if it is legal there.
+     * @param board The current board.
+     * @param entry The book entry.
+     * @return The move of the given entry, if it is legal on the given board.
+     */
+    public static Optional<Move> toMove(Board board, Entry entry) {
+        int srcIndex = GameRecord.getSrcIndex(entry.move);
+        int destIndex = GameRecord.getDestIndex(entry.move);
+        return board.getMove(new Coordinate(srcIndex / Board.NUM_COLS, srcIndex % Board.NUM_COLS),
+                new Coordinate(destIndex / Board.NUM_COLS, destIndex % Board.NUM_COLS));
+    }
+
+    /**
+     * Returns the entries of the given Zobrist key, in descending order of weight.
+     * @param zobristKey The Zobrist key of the board.
+     * @return The entries of the given Zobrist key.
+     */
+    public List<Entry> getEntries(long zobristKey) {
+        int index = findFirst(zobristKey);
+        if (index < 0) {
+            return Collections.emptyList();
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        for (; index < numEntries && getKey(index) == zobristKey; index++) {
+            entries.add(getEntry(index));
+        }
+        return entries;
+    }
+
+    /**
+     * Returns the entry at the given index, with its current learn value.
+     */
+    private Entry getEntry(int index) {
+        int offset = HEADER_SIZE + index * ENTRY_SIZE;
+        int learn = buffer.getInt(offset + 12) + learnDeltas.getOrDefault(index, 0);
+        return new Entry(getKey(index), getEntryMove(index), Short.toUnsignedInt(buffer.getShort(offset + 10)),
+                Math.max(learn, MIN_LEARN));
+    }
+
+    /**
+     * Returns the move of the entry at the given index.
+     */
+    private short getEntryMove(int index) {
+        return buffer.getShort(HEADER_SIZE + index * ENTRY_SIZE + 8);
+    }
+
+    /**
+     * Returns the index of the first entry with the given key, or -1 if there is none.
+     */
+    private int findFirst(long zobristKey) {
+        int low = 0;
+        int high = numEntries;
+        while (low < high) { // find the first entry with a key not less than the given key
+            int mid = (low + high) >>> 1;
+            if (getKey(mid) < zobristKey) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        return low < numEntries && getKey(low) == zobristKey ? low : -1;
+    }
+
+    /**
+     * Returns the index of the entry with the given key and move, or -1 if there is none.
+     */
+    private int findEntry(long zobristKey, short move) {
+        int index = findFirst(zobristKey);
+        if (index < 0) {
+            return -1;
+        }
+        for (; index < numEntries && getKey(index) == zobristKey; index++) {
+            if (getEntryMove(index) == move) {
+                return index;
+            }
+        }
+        return -1;
+    }
 
-        return Collections.unmodifiableMap(boardToMoves);
+    /**
+     * Returns the key of the entry at the given index.
+     */
+    private long getKey(int index) {
+        return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+
+    public int getNumEntries() {
+        return numEntries;
+    }
+
+    /**
+     * Represents a move stored in a book for a board with a given Zobrist key.
+     */
+    public static class Entry {
+
+        private final long zobristKey;
+        private final short move;
+        private final int weight;
+        private final int learn;
+
+        /**
+         * @param zobristKey The Zobrist key of the board.
+         * @param move The move, encoded as in game archives.
+         * @param weight The weight of the move, capped to 65535.
+         * @param learn The learn value of the move, in percent of its weight.
+         */
+        public Entry(long zobristKey, short move, int weight, int learn) {
+            this.zobristKey = zobristKey;
+            this.move = move;
+            this.weight = Math.max(0, Math.min(weight, MAX_WEIGHT));
+            this.learn = learn;
+        }
+
+        public long getZobristKey() {
+            return zobristKey;
+        }
+
+        public short getMove() {
+            return move;
+        }
+
+        public int getWeight() {
+            return weight;
+        }
+
+        /**
+         * Returns the learn value of the move, in percent of its weight.
+         * @return The learn value of the move.
+         */
+        public int getLearn() {
+            return learn;
+        }
+
+        /**
+         * Returns the weight of the move adjusted by its learn value.
+         * @return The effective weight of the move.
+         */
+        public long getEffectiveWeight() {
+            return Math.max(0, (long) weight * (100 + learn) / 100);
+        }
+    }
+
+    /**
+     * Represents a way of choosing among the moves of a board.
+     */
+    public enum Selection {
+        UNIFORM, // every move equally likely
+        WEIGHTED, // moves likely in proportion to their effective weights
+        BEST_ONLY // always the move with the highest effective weight
+    }
+
+    /**
+     * Lazily reads the bundled book, mapping it if it is a file.
+     */
+    private static class DefaultHolder {
+
+        private static final MoveBook DEFAULT = readDefault();
+
+        private static MoveBook readDefault() {
+            URL url = MoveBook.class.getResource(AI_MOVEBOOK_PATH);
+            if (url == null) {
+                return new MoveBook(ByteBuffer.allocate(0), 0);
+            }
+            try {
+                if (url.getProtocol().equals("file")) {
+                    return open(new File(url.toURI()));
+                }
+                try (InputStream in = url.openStream()) {
+                    return read(in);
+                }
+            } catch (IOException | URISyntaxException e) {
+                e.printStackTrace();
+                return new MoveBook(ByteBuffer.allocate(0), 0);
+            }
+        }
     }
 }
@@ -0,0 +1,234 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Optional;
+
+/**
+ * Represents an evaluator using a small quantised neural network (NNUE-style).
+ * The input features are (piece type, own or opponent piece, point) from the perspective of each player,
+ * and the first layer is kept in an accumulator that is updated incrementally as moves are made and undone.
+ * The accumulators of both perspectives are clipped and passed through a single output layer.
+ * A search should use the evaluator attached to its board, which keeps the accumulator of that board.
+ */
+public class NetworkEvaluator implements Evaluator {
+
+    private static final String AI_NETWORK_PATH = "/ai/network.bin";
+    private static final int MAGIC = 0x58514E4E; // "XQNN"
+    private static final int NUM_POINTS = Board.NUM_ROWS * Board.NUM_COLS;
+    private static final int NUM_FEATURES = 2 * PieceType.values().length * NUM_POINTS;
+    private static final int QA = 255; // quantisation (and clipping) factor of the accumulator
+    private static final int QB = 64; // quantisation factor of the output weights
+    private static final int SCALE = 400; // scale of the network output in evaluation units
+    private static final int MAX_VALUE = BoardEvaluator.CHECKMATE_VALUE - BoardEvaluator.MAX_CHECKMATE_PLY - 1;
+
+    private final int hiddenSize;
+    private final short[] featureWeights; // hiddenSize weights per feature
+    private final short[] featureBiases;
+    private final short[] outputWeights; // hiddenSize weights for the current player, then for the opponent
+    private final int outputBias;
+
+    private NetworkEvaluator(int hiddenSize, short[] featureWeights, short[] featureBiases,
+                             short[] outputWeights, int outputBias) {
+        this.hiddenSize = hiddenSize;
+        this.featureWeights = featureWeights;
+        this.featureBiases = featureBiases;
+        this.outputWeights = outputWeights;
+        this.outputBias = outputBias;
+    }
+
+    /**
+     * Returns the network bundled with the application, if any.
+     * @return The network bundled with the application, if any.
+     */
+    public static Optional<NetworkEvaluator> getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * Reads a network from the given stream. All values are big-endian:
+     * the magic number, the hidden size H, NUM_FEATURES * H feature weights, H feature biases,
+     * 2 * H output weights (all 16-bit) and a 32-bit output bias.
+     * @param in The stream to read from.
+     * @return The network read.
+     * @throws IOException If the stream cannot be read or is not a network.
+     */
+    public static NetworkEvaluator read(InputStream in) throws IOException {
+        DataInputStream dis = new DataInputStream(new BufferedInputStream(in));
+        if (dis.readInt() != MAGIC) {
+            throw new IOException("Invalid network");
+        }
+        int hiddenSize = dis.readInt();
+        if (hiddenSize <= 0) {
+            throw new IOException("Invalid hidden size");
+        }
+        short[] featureWeights = readShorts(dis, NUM_FEATURES * hiddenSize);
+        short[] featureBiases = readShorts(dis, hiddenSize);
+        short[] outputWeights = readShorts(dis, 2 * hiddenSize);
+        int outputBias = dis.readInt();
+
+        return new NetworkEvaluator(hiddenSize, featureWeights, featureBiases, outputWeights, outputBias);
+    }
+
+    /**
+     * Reads the given number of 16-bit values from the given stream.
+     */
+    private static short[] readShorts(DataInputStream dis, int length) throws IOException {
+        short[] arr = new short[length];
+        for (int i = 0; i < length; i++) {
+            arr[i] = dis.readShort();
+        }
+        return arr;
+    }
+
+    /**
+     * Returns the heuristic value of the given board, computing its accumulator from scratch.
+     */
+    @Override
+    public int evaluate(Board board) {
+        Accumulator accumulator = new Accumulator();
+        for (Alliance alliance : Alliance.values()) {
+            for (Piece piece : board.getPlayer(alliance).getActivePieces()) {
+                accumulator.pieceAdded(piece);
+            }
+        }
+        return evaluate(board, accumulator);
+    }
+
+    /**
+     * Returns the accumulator of a new listener of the given board, which evaluates the board incrementally
+     * until it is detached.
+     */
+    @Override
+    public Evaluator attach(Board board) {
+        Accumulator accumulator = new Accumulator();
+        board.addPieceListener(accumulator);
+        return accumulator;
+    }
+
+    /**
+     * Returns the heuristic value of the given board, from RED's perspective, using the given accumulator.
+     */
+    private int evaluate(Board board, Accumulator accumulator) {
+        boolean isRedTurn = board.getCurrPlayer().getAlliance().isRed();
+        short[] currValues = isRedTurn ? accumulator.redValues : accumulator.blackValues;
+        short[] oppValues = isRedTurn ? accumulator.blackValues : accumulator.redValues;
+
+        int sum = 0;
+        for (int i = 0; i < hiddenSize; i++) {
+            sum += clip(currValues[i]) * outputWeights[i];
+        }
+        for (int i = 0; i < hiddenSize; i++) {
+            sum += clip(oppValues[i]) * outputWeights[hiddenSize + i];
+        }
+        int val = (int) ((long) (sum + outputBias) * SCALE / (QA * QB));
+        val = Math.max(-MAX_VALUE, Math.min(val, MAX_VALUE));
+
+        return isRedTurn ? val : -val;
+    }
+
+    /**
+     * Returns the given accumulator value clipped to [0, QA].
+     */
+    private static int clip(short value) {
+        return Math.max(0, Math.min(value, QA));
+    }
+
+    /**
+     * Returns the index of the feature of the given piece from the given player's perspective.
+     * BLACK's perspective is the board flipped vertically.
+     */
+    private static int getFeature(Piece piece, Alliance perspective) {
+        int row = piece.getPosition().getRow();
+        int col = piece.getPosition().getCol();
+        if (!perspective.isRed()) {
+            row = Board.NUM_ROWS - 1 - row;
+        }
+        int side = piece.getAlliance().equals(perspective) ? 0 : 1;
+
+        return (side * PieceType.values().length + piece.getPieceType().ordinal()) * NUM_POINTS
+                + row * Board.NUM_COLS + col;
+    }
+
+    /**
+     * Represents the first layer of the network for one board, from the perspectives of both players.
+     */
+    private class Accumulator implements Board.PieceListener, Evaluator {
+
+        private final short[] redValues;
+        private final short[] blackValues;
+
+        private Accumulator() {
+            redValues = featureBiases.clone();
+            blackValues = featureBiases.clone();
+        }
+
+        @Override
+        public int evaluate(Board board) {
+            return NetworkEvaluator.this.evaluate(board, this);
+        }
+
+        @Override
+        public void detach(Board board) {
+            board.removePieceListener(this);
+        }
+
+        @Override
+        public void pieceAdded(Piece piece) {
+            add(redValues, getFeature(piece, Alliance.RED) * hiddenSize);
+            add(blackValues, getFeature(piece, Alliance.BLACK) * hiddenSize);
+        }
+
+        @Override
+        public void pieceRemoved(Piece piece) {
+            subtract(redValues, getFeature(piece, Alliance.RED) * hiddenSize);
+            subtract(blackValues, getFeature(piece, Alliance.BLACK) * hiddenSize);
+        }
+
+        /**
+         * Adds the feature weights starting at the given offset to the given values.
+         */
+        private void add(short[] values, int offset) {
+            for (int i = 0; i < hiddenSize; i++) {
+                values[i] += featureWeights[offset + i];
+            }
+        }
+
+        /**
+         * Subtracts the feature weights starting at the given offset from the given values.
+         */
+        private void subtract(short[] values, int offset) {
+            for (int i = 0; i < hiddenSize; i++) {
+                values[i] -= featureWeights[offset + i];
+            }
+        }
+    }
+
+    /**
+     * Lazily reads the bundled network, if any.
+     */
+    private static class DefaultHolder {
+
+        private static final Optional<NetworkEvaluator> DEFAULT = readDefault();
+
+        private static Optional<NetworkEvaluator> readDefault() {
+            InputStream in = NetworkEvaluator.class.getResourceAsStream(AI_NETWORK_PATH);
+            if (in == null) {
+                return Optional.empty();
+            }
+            try (in) {
+                return Optional.of(read(in));
+            } catch (IOException e) {
+                e.printStackTrace();
+                return Optional.empty();
+            }
+        }
+    }
+}
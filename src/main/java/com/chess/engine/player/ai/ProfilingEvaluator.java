@@ -0,0 +1,137 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Board;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents the classic evaluator instrumented to record the number of calls and the time spent
+ * for the whole evaluation and for each of its more expensive terms.
+ * The counters can be read and reset while searches are running.
+ */
+public class ProfilingEvaluator extends BoardEvaluator {
+
+    private final LongAdder[] calls;
+    private final LongAdder[] nanos;
+
+    public ProfilingEvaluator() {
+        this(EvalParams.getDefault());
+    }
+
+    /**
+     * @param params The values of the parameters of the classic evaluation.
+     */
+    public ProfilingEvaluator(EvalParams params) {
+        super(params);
+        int numTerms = Term.values().length;
+        calls = new LongAdder[numTerms];
+        nanos = new LongAdder[numTerms];
+        for (int i = 0; i < numTerms; i++) {
+            calls[i] = new LongAdder();
+            nanos[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public int evaluate(Board board) {
+        long startTime = System.nanoTime();
+        int val = super.evaluate(board);
+        record(Term.TOTAL, startTime);
+        return val;
+    }
+
+    @Override
+    int getMobilityScore(Board board) {
+        long startTime = System.nanoTime();
+        int score = super.getMobilityScore(board);
+        record(Term.MOBILITY, startTime);
+        return score;
+    }
+
+    @Override
+    int getChariotAdvisorScore(Board board, int redAttackValue, int blackAttackValue) {
+        long startTime = System.nanoTime();
+        int score = super.getChariotAdvisorScore(board, redAttackValue, blackAttackValue);
+        record(Term.CHARIOT_ADVISOR_BONUS, startTime);
+        return score;
+    }
+
+    @Override
+    int getCannonScore(Board board, int phase, int redAttackValue, int blackAttackValue) {
+        long startTime = System.nanoTime();
+        int score = super.getCannonScore(board, phase, redAttackValue, blackAttackValue);
+        record(Term.CANNON_BONUS, startTime);
+        return score;
+    }
+
+    @Override
+    int getRelationScore(Board board, int phase) {
+        long startTime = System.nanoTime();
+        int score = super.getRelationScore(board, phase);
+        record(Term.RELATION_SCORE, startTime);
+        return score;
+    }
+
+    /**
+     * Records a call of the given term that started at the given time.
+     */
+    private void record(Term term, long startTime) {
+        nanos[term.ordinal()].add(System.nanoTime() - startTime);
+        calls[term.ordinal()].increment();
+    }
+
+    /**
+     * Returns the number of calls of the given term.
+     * @param term The term.
+     * @return The number of calls of the given term.
+     */
+    public long getCalls(Term term) {
+        return calls[term.ordinal()].sum();
+    }
+
+    /**
+     * Returns the total time spent in the given term, in nanoseconds.
+     * @param term The term.
+     * @return The total time spent in the given term, in nanoseconds.
+     */
+    public long getNanos(Term term) {
+        return nanos[term.ordinal()].sum();
+    }
+
+    /**
+     * Resets all counters.
+     */
+    public void reset() {
+        for (int i = 0; i < calls.length; i++) {
+            calls[i].reset();
+            nanos[i].reset();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        long totalNanos = Math.max(getNanos(Term.TOTAL), 1);
+
+        for (Term term : Term.values()) {
+            long termCalls = getCalls(term);
+            long termNanos = getNanos(term);
+            sb.append(String.format("%-22s %10d calls %10.1f ms %6.1f%% %8d ns/call%n",
+                    term, termCalls, termNanos / 1e6, 100.0 * termNanos / totalNanos,
+                    termCalls == 0 ? 0 : termNanos / termCalls));
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * Represents a profiled part of the evaluation.
+     */
+    public enum Term {
+        TOTAL,
+        MOBILITY,
+        CANNON_BONUS,
+        CHARIOT_ADVISOR_BONUS,
+        RELATION_SCORE
+    }
+}
@@ -0,0 +1,138 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.tablebase.Tablebases;
+
+/**
+ * Represents the settings of a search, passed into MiniMax so that the engine does not depend on GUI state.
+ */
+public class SearchConfig {
+
+    private static final int DEFAULT_TT_SIZE = 1000003; // default transposition table size (prime)
+
+    private final boolean isRandomised;
+    private final long seed;
+    private final int numLines;
+    private final Evaluator evaluator;
+    private final int ttSize;
+    private final Tablebases tablebases;
+
+    private SearchConfig(Builder builder) {
+        isRandomised = builder.isRandomised;
+        seed = builder.seed;
+        numLines = builder.numLines;
+        evaluator = builder.evaluator;
+        ttSize = builder.ttSize;
+        tablebases = builder.tablebases;
+    }
+
+    /**
+     * Returns the default settings: no randomisation, one line, the classic evaluator with the shared cache
+     * and the default tablebases.
+     * @return The default settings.
+     */
+    public static SearchConfig getDefault() {
+        return new Builder().build();
+    }
+
+    public boolean isRandomised() {
+        return isRandomised;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getNumLines() {
+        return numLines;
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    public int getTTSize() {
+        return ttSize;
+    }
+
+    public Tablebases getTablebases() {
+        return tablebases;
+    }
+
+    /**
+     * A helper class for building search settings.
+     */
+    public static class Builder {
+
+        private boolean isRandomised;
+        private long seed;
+        private int numLines;
+        private Evaluator evaluator;
+        private int ttSize;
+        private Tablebases tablebases;
+
+        public Builder() {
+            isRandomised = false;
+            seed = System.nanoTime();
+            numLines = 1;
+            evaluator = new CachedEvaluator(BoardEvaluator.getInstance(), EvalCache.getShared());
+            ttSize = DEFAULT_TT_SIZE;
+            tablebases = Tablebases.getDefault();
+        }
+
+        /**
+         * Sets whether small random values are added to evaluations, so that the AI varies its moves.
+         */
+        public Builder setRandomised(boolean isRandomised) {
+            this.isRandomised = isRandomised;
+            return this;
+        }
+
+        /**
+         * Sets the seed of the random number generator of the search, for reproducible randomised searches.
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets the number of best root moves to find exact values and lines for (multi-PV).
+         */
+        public Builder setNumLines(int numLines) {
+            this.numLines = numLines;
+            return this;
+        }
+
+        /**
+         * Sets the evaluator of the boards searched.
+         */
+        public Builder setEvaluator(Evaluator evaluator) {
+            this.evaluator = evaluator;
+            return this;
+        }
+
+        /**
+         * Sets the number of entries of the transposition table of the search.
+         * @throws IllegalArgumentException If the given size is not positive.
+         */
+        public Builder setTTSize(int ttSize) {
+            if (ttSize <= 0) {
+                throw new IllegalArgumentException("Invalid TT size " + ttSize);
+            }
+            this.ttSize = ttSize;
+            return this;
+        }
+
+        /**
+         * Sets the tablebases probed by the search, or null to probe none.
+         */
+        public Builder setTablebases(Tablebases tablebases) {
+            this.tablebases = tablebases;
+            return this;
+        }
+
+        public SearchConfig build() {
+            return new SearchConfig(this);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.chess.engine.player.ai;
+
+import com.chess.engine.board.Move;
+
+import java.util.List;
+
+/**
+ * Represents the result of one iteration of a search.
+ */
+public class SearchInfo {
+
+    private final int depth;
+    private final int score;
+    private final long nodes;
+    private final long time;
+    private final List<Move> pv;
+
+    SearchInfo(int depth, int score, long nodes, long time, List<Move> pv) {
+        this.depth = depth;
+        this.score = score;
+        this.nodes = nodes;
+        this.time = time;
+        this.pv = pv;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    /**
+     * Returns the score of the best move from the perspective of the player to move.
+     * @return The score of the best move from the perspective of the player to move.
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the time elapsed since the search started, in milliseconds.
+     * @return The time elapsed since the search started, in milliseconds.
+     */
+    public long getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the number of nodes searched per second.
+     * @return The number of nodes searched per second.
+     */
+    public long getNps() {
+        return nodes * 1000 / Math.max(time, 1);
+    }
+
+    /**
+     * Returns the principal variation, i.e. the line of moves expected by the search.
+     * @return The principal variation, with the best move at the front.
+     */
+    public List<Move> getPv() {
+        return pv;
+    }
+
+    public Move getBestMove() {
+        return pv.get(0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        sb.append("depth ").append(depth);
+        if (BoardEvaluator.isCheckmateValue(score)) {
+            int mateMoves = (BoardEvaluator.getCheckmatePly(score) + 1) / 2;
+            sb.append(" | mate ").append(score > 0 ? mateMoves : -mateMoves);
+        } else {
+            sb.append(" | score ").append(score);
+        }
+        sb.append(" | nodes ").append(nodes)
+                .append(" | nps ").append(getNps())
+                .append(" | pv");
+        for (Move move : pv) {
+            sb.append(" ").append(move);
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.chess.engine.tablebase;
+
+/**
+ * Represents a tablebase held on the heap, one byte per position.
+ */
+class InMemoryTablebase implements Tablebase {
+
+    private final MaterialSignature signature;
+    private final byte[] values;
+
+    InMemoryTablebase(MaterialSignature signature, byte[] values) {
+        this.signature = signature;
+        this.values = values;
+    }
+
+    @Override
+    public MaterialSignature getSignature() {
+        return signature;
+    }
+
+    @Override
+    public int getValue(int index) {
+        return values[index] & 0xFF;
+    }
+}
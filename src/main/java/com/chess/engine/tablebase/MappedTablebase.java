@@ -0,0 +1,133 @@
+package com.chess.engine.tablebase;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static com.chess.engine.tablebase.TablebaseWriter.*;
+
+/**
+ * Represents a tablebase file memory-mapped read-only, as written by TablebaseWriter.
+ * Blocks are only inflated when a position in them is probed, and kept in a cache of slots indexed by block,
+ * each holding the block last inflated into it. Probes take no lock: threads missing the same block at once
+ * may both inflate it.
+ */
+public class MappedTablebase implements Tablebase {
+
+    private static final int MAX_CACHED_BLOCKS = 256;
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(Inflater::new);
+
+    private final MaterialSignature signature;
+    private final MappedByteBuffer buffer;
+    private final int blockSize;
+    private final long[] blockOffsets; // offset of each block and of the end of the file
+    private final AtomicReferenceArray<CachedBlock> cachedBlocks; // block i in slot i % length, if inflated
+
+    /**
+     * Maps the tablebase of the given signature at the given file.
+     * @param signature The canonical signature of the tablebase.
+     * @param file The tablebase file.
+     * @throws IOException If the file cannot be mapped or is not a tablebase of the given signature.
+     */
+    public MappedTablebase(MaterialSignature signature, File file) throws IOException {
+        this.signature = signature;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid tablebase " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                || buffer.getInt() != signature.getNumPositions()) {
+            throw new IOException("Invalid tablebase " + file);
+        }
+        blockSize = buffer.getInt();
+        int numBlocks = buffer.getInt();
+        if (blockSize <= 0 || numBlocks != (signature.getNumPositions() + blockSize - 1) / blockSize
+                || HEADER_SIZE + 8L * (numBlocks + 1) > buffer.capacity()) {
+            throw new IOException("Invalid tablebase " + file);
+        }
+        blockOffsets = new long[numBlocks + 1];
+        for (int i = 0; i <= numBlocks; i++) {
+            blockOffsets[i] = buffer.getLong();
+            if (blockOffsets[i] < (i == 0 ? buffer.position() : blockOffsets[i - 1])) {
+                throw new IOException("Invalid tablebase " + file);
+            }
+        }
+        if (blockOffsets[numBlocks] != buffer.capacity()) {
+            throw new IOException("Invalid tablebase " + file);
+        }
+
+        cachedBlocks = new AtomicReferenceArray<>(Math.min(numBlocks, MAX_CACHED_BLOCKS));
+    }
+
+    @Override
+    public MaterialSignature getSignature() {
+        return signature;
+    }
+
+    @Override
+    public int getValue(int index) {
+        int block = index / blockSize;
+        int slot = block % cachedBlocks.length();
+        CachedBlock cachedBlock = cachedBlocks.get(slot);
+        if (cachedBlock == null || cachedBlock.block != block) {
+            cachedBlock = new CachedBlock(block, inflateBlock(block));
+            cachedBlocks.set(slot, cachedBlock);
+        }
+        return cachedBlock.values[index - block * blockSize] & 0xFF;
+    }
+
+    /**
+     * Returns the decompressed values of the given block.
+     */
+    private byte[] inflateBlock(int block) {
+        byte[] input = new byte[(int) (blockOffsets[block + 1] - blockOffsets[block])];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position((int) blockOffsets[block]);
+        slice.get(input);
+
+        int numValues = Math.min(blockSize, signature.getNumPositions() - block * blockSize);
+        byte[] values = new byte[numValues];
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        try {
+            inflater.setInput(input);
+            int length = 0;
+            while (length < numValues && !inflater.finished()) {
+                int numInflated = inflater.inflate(values, length, numValues - length);
+                if (numInflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += numInflated;
+            }
+            if (length != numValues) {
+                throw new IllegalStateException("Truncated block " + block + " of tablebase " + signature);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block " + block + " of tablebase " + signature, e);
+        }
+
+        return values;
+    }
+
+    /**
+     * Represents the inflated values of a block.
+     */
+    private static class CachedBlock {
+
+        private final int block;
+        private final byte[] values;
+
+        private CachedBlock(int block, byte[] values) {
+            this.block = block;
+            this.values = values;
+        }
+    }
+}
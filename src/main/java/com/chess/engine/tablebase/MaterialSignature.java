@@ -0,0 +1,360 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Coordinate;
+import com.chess.engine.pieces.Advisor;
+import com.chess.engine.pieces.Elephant;
+import com.chess.engine.pieces.General;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.chess.engine.pieces.Soldier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Represents the material of an endgame, written with the FEN letters of RED's pieces followed by BLACK's,
+ * each starting with its general, e.g. "KRKAA" for a chariot against two advisors.
+ * A signature is canonical when RED's pieces are at least as strong as BLACK's (in the order R, C, N, P, A, B,
+ * strongest first); tables are only built for canonical signatures, and positions of
+ * other signatures are looked up as their colour-flipped positions.
+ *
+ * The positions of a signature are indexed by the squares of its pieces, each counted only among the points
+ * that the piece can reach (e.g. the palace for generals and advisors), and by the player to move.
+ */
+public class MaterialSignature {
+
+    private static final String PIECE_ORDER = "KRCNPAB";
+    private static final int NUM_POINTS = Board.NUM_ROWS * Board.NUM_COLS;
+
+    private final String name;
+    private final PieceType[] pieceTypes;
+    private final Alliance[] alliances;
+    private final int[][] squares; // points reachable by each piece
+    private final int[][] ordinals; // ordinal of each point among the reachable points of each piece, or -1
+    private final int[] strides;
+    private final int numPositions;
+
+    private MaterialSignature(String redPieces, String blackPieces) {
+        name = redPieces + blackPieces;
+        int numPieces = name.length();
+        pieceTypes = new PieceType[numPieces];
+        alliances = new Alliance[numPieces];
+        squares = new int[numPieces][];
+        ordinals = new int[numPieces][];
+        strides = new int[numPieces];
+
+        long stride = 2; // the lowest bit of an index is the player to move
+        for (int i = numPieces - 1; i >= 0; i--) {
+            pieceTypes[i] = charToPieceType(name.charAt(i));
+            alliances[i] = i < redPieces.length() ? Alliance.RED : Alliance.BLACK;
+            squares[i] = getReachableSquares(pieceTypes[i], alliances[i]);
+            ordinals[i] = new int[NUM_POINTS];
+            Arrays.fill(ordinals[i], -1);
+            for (int j = 0; j < squares[i].length; j++) {
+                ordinals[i][squares[i][j]] = j;
+            }
+            strides[i] = (int) stride;
+            stride *= squares[i].length;
+            if (stride > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many positions in " + name);
+            }
+        }
+        numPositions = (int) stride;
+    }
+
+    /**
+     * Returns the signature with the given name, e.g. "KRKAA". Pieces may be given in any order after
+     * their general, and H and E are accepted for horses and elephants.
+     * @param name The name of the signature.
+     * @return The signature with the given name.
+     * @throws IllegalArgumentException If the given name is not a valid signature.
+     */
+    public static MaterialSignature of(String name) {
+        String upperName = name.trim().toUpperCase().replace('H', 'N').replace('E', 'B');
+        int blackStart = upperName.indexOf('K', 1);
+        if (upperName.isEmpty() || upperName.charAt(0) != 'K' || blackStart < 0
+                || upperName.indexOf('K', blackStart + 1) >= 0) {
+            throw new IllegalArgumentException("Each player must have one general in " + name);
+        }
+        for (char c : upperName.toCharArray()) {
+            if (PIECE_ORDER.indexOf(c) < 0) {
+                throw new IllegalArgumentException("Invalid piece " + c + " in " + name);
+            }
+        }
+        return new MaterialSignature(sortPieces(upperName.substring(0, blackStart)),
+                sortPieces(upperName.substring(blackStart)));
+    }
+
+    /**
+     * Returns the signature of the pieces on the given board.
+     * @param board The board.
+     * @return The signature of the pieces on the given board.
+     */
+    public static MaterialSignature of(Board board) {
+        return of(getName(board));
+    }
+
+    /**
+     * Returns the name of the signature of the pieces on the given board, in canonical order for each player.
+     */
+    static String getName(Board board) {
+        StringBuilder sb = new StringBuilder();
+        for (Alliance alliance : Alliance.values()) {
+            for (int i = 0; i < PIECE_ORDER.length(); i++) {
+                PieceType pieceType = charToPieceType(PIECE_ORDER.charAt(i));
+                for (int j = 0; j < board.getPieceCount(alliance, pieceType); j++) {
+                    sb.append(PIECE_ORDER.charAt(i));
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the given pieces of one player in canonical order.
+     */
+    private static String sortPieces(String pieces) {
+        return pieces.chars()
+                .boxed()
+                .sorted((c1, c2) -> PIECE_ORDER.indexOf(c1) - PIECE_ORDER.indexOf(c2))
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append)
+                .toString();
+    }
+
+    /**
+     * Checks if this signature is canonical, i.e. if RED's pieces are at least as strong as BLACK's:
+     * the strongest pieces are compared first, and on equal pieces the player with more pieces is stronger.
+     * @return true if this signature is canonical, false otherwise.
+     */
+    public boolean isCanonical() {
+        String redPieces = name.substring(0, getNumRedPieces());
+        String blackPieces = name.substring(getNumRedPieces());
+        for (int i = 0; i < Math.min(redPieces.length(), blackPieces.length()); i++) {
+            int cmp = PIECE_ORDER.indexOf(redPieces.charAt(i)) - PIECE_ORDER.indexOf(blackPieces.charAt(i));
+            if (cmp != 0) {
+                return cmp < 0;
+            }
+        }
+        return redPieces.length() >= blackPieces.length();
+    }
+
+    /**
+     * Returns the signature with the pieces of the two players swapped.
+     * @return The colour-flipped signature.
+     */
+    public MaterialSignature getFlipped() {
+        return new MaterialSignature(name.substring(getNumRedPieces()), name.substring(0, getNumRedPieces()));
+    }
+
+    /**
+     * Returns the canonical signature of this signature, which is either itself or its colour-flipped signature.
+     * @return The canonical signature of this signature.
+     */
+    public MaterialSignature getCanonical() {
+        return isCanonical() ? this : getFlipped();
+    }
+
+    /**
+     * Returns the signature with the given piece removed.
+     * @param piece The index of the piece to remove, which must not be a general.
+     * @return The signature with the given piece removed.
+     */
+    public MaterialSignature without(int piece) {
+        String remaining = name.substring(0, piece) + name.substring(piece + 1);
+        int numRedPieces = getNumRedPieces() - (alliances[piece].isRed() ? 1 : 0);
+        return new MaterialSignature(remaining.substring(0, numRedPieces), remaining.substring(numRedPieces));
+    }
+
+    public int getNumPieces() {
+        return pieceTypes.length;
+    }
+
+    public int getNumPositions() {
+        return numPositions;
+    }
+
+    public PieceType getPieceType(int piece) {
+        return pieceTypes[piece];
+    }
+
+    public Alliance getAlliance(int piece) {
+        return alliances[piece];
+    }
+
+    private int getNumRedPieces() {
+        return name.indexOf('K', 1);
+    }
+
+    /**
+     * Returns the index of the general of the given alliance.
+     */
+    int getGeneral(Alliance alliance) {
+        return alliance.isRed() ? 0 : getNumRedPieces();
+    }
+
+    /**
+     * Returns the points reachable by the given piece.
+     */
+    int[] getSquares(int piece) {
+        return squares[piece];
+    }
+
+    /**
+     * Returns the ordinal of the given point among the points reachable by the given piece, or -1 if unreachable.
+     */
+    int getOrdinal(int piece, int square) {
+        return ordinals[piece][square];
+    }
+
+    /**
+     * Returns the amount by which the index changes per ordinal of the given piece.
+     */
+    int getStride(int piece) {
+        return strides[piece];
+    }
+
+    /**
+     * Returns the index of the position with the pieces on the given points and the given player to move,
+     * or -1 if a piece is on a point it cannot reach.
+     * @param pieceSquares The point index of each piece, in the order of this signature.
+     * @param currTurn The player to move.
+     * @return The index of the position.
+     */
+    public int getIndex(int[] pieceSquares, Alliance currTurn) {
+        int index = currTurn.isRed() ? 0 : 1;
+        for (int i = 0; i < pieceTypes.length; i++) {
+            int ordinal = ordinals[i][pieceSquares[i]];
+            if (ordinal < 0) {
+                return -1;
+            }
+            index += ordinal * strides[i];
+        }
+        return index;
+    }
+
+    /**
+     * Decodes the given index into the point of each piece and returns the player to move.
+     * @param index The index of the position.
+     * @param pieceSquares The array to store the point index of each piece in.
+     * @return The player to move.
+     */
+    public Alliance getPosition(int index, int[] pieceSquares) {
+        for (int i = 0; i < pieceTypes.length; i++) {
+            pieceSquares[i] = squares[i][(index / strides[i]) % squares[i].length];
+        }
+        return (index & 1) == 0 ? Alliance.RED : Alliance.BLACK;
+    }
+
+    /**
+     * Returns the points reachable by a piece of the given type and alliance.
+     */
+    private static int[] getReachableSquares(PieceType pieceType, Alliance alliance) {
+        List<Integer> reachableSquares = new ArrayList<>();
+        for (int square = 0; square < NUM_POINTS; square++) {
+            if (isReachable(pieceType, alliance, toPosition(square))) {
+                reachableSquares.add(square);
+            }
+        }
+        return reachableSquares.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Returns the position of the point with the given index.
+     */
+    static Coordinate toPosition(int square) {
+        return new Coordinate(square / Board.NUM_COLS, square % Board.NUM_COLS);
+    }
+
+    /**
+     * Returns the index of the point with the given index after flipping the board between the players.
+     */
+    static int flipSquare(int square) {
+        return (Board.NUM_ROWS - 1 - square / Board.NUM_COLS) * Board.NUM_COLS + square % Board.NUM_COLS;
+    }
+
+    /**
+     * Checks if the given position can be reached by a piece of the given type and alliance.
+     */
+    static boolean isReachable(PieceType pieceType, Alliance alliance, Coordinate position) {
+        switch (pieceType) {
+            case GENERAL:
+                return General.isValidPosition(position, alliance);
+            case ADVISOR:
+                return Advisor.isValidPosition(position, alliance);
+            case ELEPHANT:
+                return Elephant.isValidPosition(position, alliance);
+            case SOLDIER:
+                return Soldier.isValidPosition(position, alliance);
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Returns the piece type of the given FEN character.
+     */
+    private static PieceType charToPieceType(char c) {
+        switch (c) {
+            case 'R':
+                return PieceType.CHARIOT;
+            case 'N':
+                return PieceType.HORSE;
+            case 'B':
+                return PieceType.ELEPHANT;
+            case 'A':
+                return PieceType.ADVISOR;
+            case 'K':
+                return PieceType.GENERAL;
+            case 'C':
+                return PieceType.CANNON;
+            default:
+                return PieceType.SOLDIER;
+        }
+    }
+
+    /**
+     * Returns the FEN character of the given piece type.
+     */
+    static char pieceTypeToChar(PieceType pieceType) {
+        return PIECE_ORDER.charAt(getOrder(pieceType));
+    }
+
+    /**
+     * Returns the position of the given piece type in the canonical order of pieces.
+     */
+    private static int getOrder(PieceType pieceType) {
+        switch (pieceType) {
+            case GENERAL:
+                return 0;
+            case CHARIOT:
+                return 1;
+            case CANNON:
+                return 2;
+            case HORSE:
+                return 3;
+            case SOLDIER:
+                return 4;
+            case ADVISOR:
+                return 5;
+            default:
+                return 6;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof MaterialSignature && name.equals(((MaterialSignature) other).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
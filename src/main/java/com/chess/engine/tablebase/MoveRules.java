@@ -0,0 +1,164 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A helper class with the movement rules of pieces on compact boards, for generating moves and unmoves
+ * quickly during retrograde analysis. A compact board is an array of point indices, each holding 0 if empty
+ * or one more than the index of the piece on it (within its material signature).
+ */
+class MoveRules {
+
+    private static final int NUM_POINTS = Board.NUM_ROWS * Board.NUM_COLS;
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
+
+    // [piece type][0 for RED, 1 for BLACK][point]
+    private static final boolean[][][] REACHABLE = new boolean[PIECE_TYPES.length][2][NUM_POINTS];
+    private static final int[][][][] TARGETS = new int[PIECE_TYPES.length][2][NUM_POINTS][];
+    private static final int[][][][] SOURCES = new int[PIECE_TYPES.length][2][NUM_POINTS][];
+
+    static {
+        for (PieceType pieceType : PIECE_TYPES) {
+            for (Alliance alliance : Alliance.values()) {
+                boolean[] reachable = REACHABLE[pieceType.ordinal()][getSide(alliance)];
+                for (int square = 0; square < NUM_POINTS; square++) {
+                    reachable[square] = MaterialSignature.isReachable(pieceType, alliance,
+                            MaterialSignature.toPosition(square));
+                }
+            }
+        }
+        for (PieceType pieceType : PIECE_TYPES) {
+            for (Alliance alliance : Alliance.values()) {
+                for (int square = 0; square < NUM_POINTS; square++) {
+                    List<Integer> targets = new ArrayList<>();
+                    List<Integer> sources = new ArrayList<>();
+                    for (int other = 0; other < NUM_POINTS; other++) {
+                        if (isGeometric(pieceType, alliance, square, other)) {
+                            targets.add(other);
+                        }
+                        if (isGeometric(pieceType, alliance, other, square)) {
+                            sources.add(other);
+                        }
+                    }
+                    TARGETS[pieceType.ordinal()][getSide(alliance)][square] =
+                            targets.stream().mapToInt(Integer::intValue).toArray();
+                    SOURCES[pieceType.ordinal()][getSide(alliance)][square] =
+                            sources.stream().mapToInt(Integer::intValue).toArray();
+                }
+            }
+        }
+    }
+
+    private static int getSide(Alliance alliance) {
+        return alliance.isRed() ? 0 : 1;
+    }
+
+    /**
+     * Returns the points that a piece of the given type and alliance on the given point could move to
+     * on an empty board.
+     */
+    static int[] getTargets(PieceType pieceType, Alliance alliance, int from) {
+        return TARGETS[pieceType.ordinal()][getSide(alliance)][from];
+    }
+
+    /**
+     * Returns the points from which a piece of the given type and alliance could move to the given point
+     * on an empty board.
+     */
+    static int[] getSources(PieceType pieceType, Alliance alliance, int to) {
+        return SOURCES[pieceType.ordinal()][getSide(alliance)][to];
+    }
+
+    /**
+     * Checks if a piece of the given type and alliance could move between the given points on an empty board,
+     * ignoring the flying general.
+     */
+    private static boolean isGeometric(PieceType pieceType, Alliance alliance, int from, int to) {
+        boolean[] reachable = REACHABLE[pieceType.ordinal()][getSide(alliance)];
+        if (from == to || !reachable[from] || !reachable[to]) {
+            return false;
+        }
+        int rowOffset = to / Board.NUM_COLS - from / Board.NUM_COLS;
+        int colOffset = to % Board.NUM_COLS - from % Board.NUM_COLS;
+        int absRowOffset = Math.abs(rowOffset);
+        int absColOffset = Math.abs(colOffset);
+
+        switch (pieceType) {
+            case CHARIOT:
+            case CANNON:
+                return rowOffset == 0 || colOffset == 0;
+            case HORSE:
+                return (absRowOffset == 2 && absColOffset == 1) || (absRowOffset == 1 && absColOffset == 2);
+            case ELEPHANT:
+                return absRowOffset == 2 && absColOffset == 2;
+            case ADVISOR:
+                return absRowOffset == 1 && absColOffset == 1;
+            case GENERAL:
+                return absRowOffset + absColOffset == 1;
+            default:
+                if (rowOffset == alliance.getDirection() && colOffset == 0) { // forward
+                    return true;
+                }
+                int row = from / Board.NUM_COLS;
+                boolean crossedRiver = alliance.isRed() ? row < Board.RIVER_ROW_RED : row > Board.RIVER_ROW_BLACK;
+                return crossedRiver && rowOffset == 0 && absColOffset == 1;
+        }
+    }
+
+    /**
+     * Checks if a piece of the given type on the given point, which could move to the other given point
+     * on an empty board, is not blocked from moving (or capturing, if the point is occupied) there.
+     */
+    static boolean isUnblocked(PieceType pieceType, int from, int to, boolean isCapture, byte[] board) {
+        switch (pieceType) {
+            case CHARIOT:
+                return countPiecesBetween(from, to, board) == 0;
+            case CANNON:
+                return countPiecesBetween(from, to, board) == (isCapture ? 1 : 0);
+            case HORSE: {
+                int rowOffset = to / Board.NUM_COLS - from / Board.NUM_COLS;
+                int colOffset = to % Board.NUM_COLS - from % Board.NUM_COLS;
+                int leg = Math.abs(rowOffset) == 2 ? from + rowOffset / 2 * Board.NUM_COLS : from + colOffset / 2;
+                return board[leg] == 0;
+            }
+            case ELEPHANT:
+                return board[(from + to) / 2] == 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Checks if a piece of the given type and alliance on the given point attacks the other given point,
+     * including the flying general.
+     */
+    static boolean attacks(PieceType pieceType, Alliance alliance, int from, int to, byte[] board) {
+        if (pieceType == PieceType.GENERAL && from % Board.NUM_COLS == to % Board.NUM_COLS
+                && countPiecesBetween(from, to, board) == 0) {
+            return true;
+        }
+        return isGeometric(pieceType, alliance, from, to) && isUnblocked(pieceType, from, to, true, board);
+    }
+
+    /**
+     * Returns the number of pieces strictly between the given points, which must be in the same row or column.
+     */
+    private static int countPiecesBetween(int from, int to, byte[] board) {
+        int step = from / Board.NUM_COLS == to / Board.NUM_COLS ? 1 : Board.NUM_COLS;
+        if (to < from) {
+            step = -step;
+        }
+        int count = 0;
+        for (int square = from + step; square != to; square += step) {
+            if (board[square] != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
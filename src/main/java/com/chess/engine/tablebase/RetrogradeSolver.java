@@ -0,0 +1,370 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * Builds distance-to-mate tables of material signatures by retrograde analysis.
+ * Every legal position is first resolved through its captures, which lead into the (recursively solved) tables
+ * of smaller signatures, and positions without legal moves are lost. Then, one distance at a time,
+ * the predecessors of the positions lost at that distance are won at the next distance, and the predecessors
+ * of the positions won at that distance lose once all their moves are known to lose. Positions never resolved
+ * are draws. Each step is spread over a fixed number of threads, in chunks of positions.
+ */
+public class RetrogradeSolver {
+
+    private static final int CHUNK_SIZE = 1 << 14;
+    private static final int NUM_POINTS = Board.NUM_ROWS * Board.NUM_COLS;
+
+    private final ExecutorService executor;
+    private final Map<MaterialSignature, Tablebase> tablebases;
+
+    /**
+     * Creates a solver running on the given number of threads.
+     * @param numThreads The number of threads.
+     */
+    public RetrogradeSolver(int numThreads) {
+        executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread thread = new Thread(r, "RetrogradeSolver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        tablebases = new LinkedHashMap<>();
+    }
+
+    /**
+     * Returns the table of the given signature, solving it (and the tables it depends on) if not yet solved.
+     * @param signature The signature, which is made canonical if it is not.
+     * @return The table of the given signature.
+     * @throws IllegalStateException If a distance to mate exceeds the maximum distance of a table.
+     */
+    public synchronized Tablebase solve(MaterialSignature signature) {
+        MaterialSignature canonical = signature.getCanonical();
+        Tablebase tablebase = tablebases.get(canonical);
+        if (tablebase != null) {
+            return tablebase;
+        }
+
+        Capture[] captures = new Capture[canonical.getNumPieces()];
+        for (int i = 0; i < captures.length; i++) {
+            if (canonical.getPieceType(i) != PieceType.GENERAL) {
+                MaterialSignature remaining = canonical.without(i);
+                captures[i] = new Capture(canonical, i, solve(remaining));
+            }
+        }
+        tablebase = new Solution(canonical, captures).solve();
+        tablebases.put(canonical, tablebase);
+
+        return tablebase;
+    }
+
+    /**
+     * Returns the tables solved so far, each after the tables it depends on.
+     * @return The tables solved so far.
+     */
+    public synchronized Collection<Tablebase> getTablebases() {
+        return Collections.unmodifiableList(new ArrayList<>(tablebases.values()));
+    }
+
+    /**
+     * Runs the given task on all chunks of the given number of positions and combines their results.
+     */
+    private long forEachChunk(int numPositions, ChunkTask task, LongBinaryOperator combiner) {
+        List<Callable<Long>> tasks = new ArrayList<>();
+        for (int start = 0; start < numPositions; start += CHUNK_SIZE) {
+            int chunkStart = start;
+            int chunkEnd = Math.min(numPositions, start + CHUNK_SIZE);
+            tasks.add(() -> task.run(chunkStart, chunkEnd));
+        }
+
+        long result = 0;
+        try {
+            for (Future<Long> future : executor.invokeAll(tasks)) {
+                result = combiner.applyAsLong(result, future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while solving", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return result;
+    }
+
+    /**
+     * Represents a task on a range of positions.
+     */
+    private interface ChunkTask {
+
+        long run(int start, int end);
+    }
+
+    /**
+     * Represents the captures of a piece of a signature, which lead into the table of the remaining pieces.
+     */
+    private static class Capture {
+
+        private final Tablebase tablebase;
+        private final boolean isFlipped;
+        private final int[] remainingPieces; // index of each piece within the remaining signature, or -1
+
+        private Capture(MaterialSignature signature, int capturedPiece, Tablebase tablebase) {
+            this.tablebase = tablebase;
+            MaterialSignature remaining = tablebase.getSignature();
+            isFlipped = !signature.without(capturedPiece).isCanonical();
+            remainingPieces = new int[signature.getNumPieces()];
+            boolean[] isAssigned = new boolean[remaining.getNumPieces()];
+
+            for (int i = 0; i < remainingPieces.length; i++) {
+                remainingPieces[i] = -1;
+                if (i == capturedPiece) continue;
+                Alliance alliance = isFlipped ? signature.getAlliance(i).opposite() : signature.getAlliance(i);
+                for (int j = 0; j < isAssigned.length; j++) {
+                    if (!isAssigned[j] && remaining.getPieceType(j) == signature.getPieceType(i)
+                            && remaining.getAlliance(j) == alliance) {
+                        isAssigned[j] = true;
+                        remainingPieces[i] = j;
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the value of the position after the capture, with the pieces on the given points
+         * and the given player to move.
+         */
+        private int getValue(int[] squares, Alliance currTurn) {
+            MaterialSignature remaining = tablebase.getSignature();
+            int index = (isFlipped ? currTurn.opposite() : currTurn).isRed() ? 0 : 1;
+            for (int i = 0; i < squares.length; i++) {
+                int j = remainingPieces[i];
+                if (j < 0) continue;
+                int square = isFlipped ? MaterialSignature.flipSquare(squares[i]) : squares[i];
+                index += remaining.getOrdinal(j, square) * remaining.getStride(j);
+            }
+            return tablebase.getValue(index);
+        }
+    }
+
+    /**
+     * Represents the solving of the table of a signature.
+     */
+    private class Solution {
+
+        private final MaterialSignature signature;
+        private final Capture[] captures;
+        private final int numPositions;
+        private final byte[] values;
+        private final AtomicIntegerArray remainingMoves; // moves not yet known to lose, of unresolved positions
+        private final byte[] captureWins; // smallest winning distance through a capture, or 0
+        private final byte[] captureLosses; // largest losing distance through the moves known to lose
+
+        private Solution(MaterialSignature signature, Capture[] captures) {
+            this.signature = signature;
+            this.captures = captures;
+            numPositions = signature.getNumPositions();
+            values = new byte[numPositions];
+            remainingMoves = new AtomicIntegerArray(numPositions);
+            captureWins = new byte[numPositions];
+            captureLosses = new byte[numPositions];
+        }
+
+        private Tablebase solve() {
+            long maxCaptureDistance = forEachChunk(numPositions, this::initialise, Math::max);
+
+            for (int distance = 0; ; distance++) {
+                if (distance > Tablebase.MAX_DISTANCE) {
+                    throw new IllegalStateException("Distance to mate too long in " + signature);
+                }
+                int currDistance = distance;
+                forEachChunk(numPositions, (start, end) -> resolve(start, end, currDistance), Long::sum);
+                long numResolved = forEachChunk(numPositions,
+                        (start, end) -> propagate(start, end, currDistance), Long::sum);
+                if (numResolved == 0 && distance >= maxCaptureDistance) break;
+            }
+
+            return new InMemoryTablebase(signature, values);
+        }
+
+        /**
+         * Marks the illegal positions in the given range and counts the moves of the legal ones,
+         * resolving their captures. Returns the largest distance of a capture.
+         */
+        private long initialise(int start, int end) {
+            int[] squares = new int[signature.getNumPieces()];
+            byte[] board = new byte[NUM_POINTS];
+            long maxDistance = 0;
+
+            for (int index = start; index < end; index++) {
+                Alliance currTurn = signature.getPosition(index, squares);
+                if (!placePieces(squares, board)
+                        || isAttacked(squares[signature.getGeneral(currTurn.opposite())], currTurn, -1,
+                        squares, board)) {
+                    values[index] = (byte) Tablebase.BROKEN;
+                    removePieces(squares, board);
+                    continue;
+                }
+
+                int numMoves = 0;
+                int captureWin = 0;
+                int captureLoss = 0;
+                for (int piece = 0; piece < squares.length; piece++) {
+                    if (signature.getAlliance(piece) != currTurn) continue;
+                    PieceType pieceType = signature.getPieceType(piece);
+                    int from = squares[piece];
+                    for (int to : MoveRules.getTargets(pieceType, currTurn, from)) {
+                        int capturedPiece = board[to] - 1;
+                        if (capturedPiece >= 0 && signature.getAlliance(capturedPiece) == currTurn) continue;
+                        boolean isCapture = capturedPiece >= 0;
+                        if (!MoveRules.isUnblocked(pieceType, from, to, isCapture, board)) continue;
+
+                        board[from] = 0;
+                        board[to] = (byte) (piece + 1);
+                        squares[piece] = to;
+                        boolean isLegal = !isAttacked(squares[signature.getGeneral(currTurn)],
+                                currTurn.opposite(), capturedPiece, squares, board);
+                        int value = isLegal && isCapture
+                                ? captures[capturedPiece].getValue(squares, currTurn.opposite())
+                                : Tablebase.DRAW;
+                        squares[piece] = from;
+                        board[from] = (byte) (piece + 1);
+                        board[to] = (byte) (capturedPiece + 1);
+                        if (!isLegal) continue;
+
+                        if (Tablebase.isWin(value)) {
+                            captureLoss = Math.max(captureLoss, Tablebase.getDistance(value) + 1);
+                        } else {
+                            numMoves++;
+                            if (Tablebase.isLoss(value)) {
+                                int distance = Tablebase.getDistance(value) + 1;
+                                captureWin = captureWin == 0 ? distance : Math.min(captureWin, distance);
+                            }
+                        }
+                    }
+                }
+                removePieces(squares, board);
+
+                remainingMoves.set(index, numMoves);
+                captureWins[index] = (byte) captureWin;
+                captureLosses[index] = (byte) captureLoss;
+                maxDistance = Math.max(maxDistance, Math.max(captureWin, captureLoss));
+            }
+
+            return maxDistance;
+        }
+
+        /**
+         * Resolves the unresolved positions in the given range whose captures decide them at the given distance.
+         */
+        private long resolve(int start, int end, int distance) {
+            for (int index = start; index < end; index++) {
+                if (values[index] != Tablebase.DRAW) continue;
+                if ((distance > 0 && (captureWins[index] & 0xFF) == distance)
+                        || (remainingMoves.get(index) == 0 && (captureLosses[index] & 0xFF) == distance)) {
+                    values[index] = (byte) Tablebase.toValue(distance);
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Updates the predecessors of the positions in the given range that are resolved at the given distance,
+         * and returns the number of such positions.
+         */
+        private long propagate(int start, int end, int distance) {
+            int[] squares = new int[signature.getNumPieces()];
+            byte[] board = new byte[NUM_POINTS];
+            byte value = (byte) Tablebase.toValue(distance);
+            boolean isLoss = distance % 2 == 0;
+            long numResolved = 0;
+
+            for (int index = start; index < end; index++) {
+                if (values[index] != value) continue;
+                numResolved++;
+                if (distance + 1 > Tablebase.MAX_DISTANCE) {
+                    throw new IllegalStateException("Distance to mate too long in " + signature);
+                }
+
+                Alliance prevTurn = signature.getPosition(index, squares).opposite();
+                placePieces(squares, board);
+                for (int piece = 0; piece < squares.length; piece++) {
+                    if (signature.getAlliance(piece) != prevTurn) continue;
+                    PieceType pieceType = signature.getPieceType(piece);
+                    int to = squares[piece];
+                    for (int from : MoveRules.getSources(pieceType, prevTurn, to)) {
+                        if (board[from] != 0 || !MoveRules.isUnblocked(pieceType, from, to, false, board)) continue;
+                        int prevIndex = (index + (signature.getOrdinal(piece, from)
+                                - signature.getOrdinal(piece, to)) * signature.getStride(piece)) ^ 1;
+                        if (values[prevIndex] != Tablebase.DRAW) continue; // illegal or resolved
+
+                        if (isLoss) {
+                            values[prevIndex] = (byte) Tablebase.toValue(distance + 1);
+                        } else if (remainingMoves.decrementAndGet(prevIndex) == 0
+                                && (captureLosses[prevIndex] & 0xFF) < distance + 1) {
+                            captureLosses[prevIndex] = (byte) (distance + 1);
+                        }
+                    }
+                }
+                removePieces(squares, board);
+            }
+
+            return numResolved;
+        }
+
+        /**
+         * Places the pieces on the given points on the given empty board.
+         * Returns false if two pieces share a point.
+         */
+        private boolean placePieces(int[] squares, byte[] board) {
+            boolean isValid = true;
+            for (int piece = 0; piece < squares.length; piece++) {
+                if (board[squares[piece]] != 0) {
+                    isValid = false;
+                }
+                board[squares[piece]] = (byte) (piece + 1);
+            }
+            return isValid;
+        }
+
+        /**
+         * Clears the given points on the given board.
+         */
+        private void removePieces(int[] squares, byte[] board) {
+            for (int square : squares) {
+                board[square] = 0;
+            }
+        }
+
+        /**
+         * Checks if the given point is attacked by the pieces of the given alliance, except the given piece.
+         */
+        private boolean isAttacked(int square, Alliance attacker, int excludedPiece, int[] squares, byte[] board) {
+            for (int piece = 0; piece < squares.length; piece++) {
+                if (piece == excludedPiece || signature.getAlliance(piece) != attacker) continue;
+                if (MoveRules.attacks(signature.getPieceType(piece), attacker, squares[piece], square, board)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.chess.engine.tablebase;
+
+/**
+ * Represents a table of the exact values of all positions of a canonical material signature, by index.
+ * A value is either DRAW, BROKEN for indices that are not legal positions, or one more than the distance
+ * to mate in plies: odd distances are wins for the player to move and even distances losses, with 0 when
+ * the player to move has been checkmated or stalemated. Perpetual checks and chases are not considered.
+ */
+public interface Tablebase {
+
+    int DRAW = 0;
+    int BROKEN = 0xFF;
+    int MAX_DISTANCE = 253;
+
+    MaterialSignature getSignature();
+
+    /**
+     * Returns the value of the position with the given index.
+     * @param index The index of the position.
+     * @return The value of the position.
+     */
+    int getValue(int index);
+
+    /**
+     * Returns the value of a position with the given distance to mate.
+     * @param distance The distance to mate in plies.
+     * @return The value of a position with the given distance to mate.
+     */
+    static int toValue(int distance) {
+        return distance + 1;
+    }
+
+    /**
+     * Checks if the given value is a win for the player to move.
+     * @param value The value to check.
+     * @return true if the given value is a win for the player to move, false otherwise.
+     */
+    static boolean isWin(int value) {
+        return value != DRAW && value != BROKEN && value % 2 == 0;
+    }
+
+    /**
+     * Checks if the given value is a loss for the player to move.
+     * @param value The value to check.
+     * @return true if the given value is a loss for the player to move, false otherwise.
+     */
+    static boolean isLoss(int value) {
+        return value != BROKEN && value % 2 == 1;
+    }
+
+    /**
+     * Returns the distance to mate in plies of the given win or loss value.
+     * @param value The win or loss value.
+     * @return The distance to mate in plies.
+     */
+    static int getDistance(int value) {
+        return value - 1;
+    }
+}
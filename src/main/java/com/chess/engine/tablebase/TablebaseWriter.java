@@ -0,0 +1,94 @@
+package com.chess.engine.tablebase;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.Deflater;
+import java.util.stream.IntStream;
+
+/**
+ * Writes tablebases into block-compressed files named after their signatures. All values are big-endian.
+ * A file starts with a header (magic number, version, number of positions, block size and number of blocks),
+ * followed by the offsets of all blocks and of the end of the file (8 bytes each) and the blocks themselves,
+ * each holding the values of a range of positions (one byte each) compressed with deflate.
+ * Blocks are compressed in parallel, and can be decompressed on their own when probing.
+ */
+public class TablebaseWriter {
+
+    static final int MAGIC = 0x58515442; // "XQTB"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 20;
+    static final int BLOCK_SIZE = 1 << 12; // small enough to inflate on a probe
+    static final String FILE_EXTENSION = ".xqtb";
+
+    /**
+     * Returns the name of the file of the given signature.
+     * @param signature The signature.
+     * @return The name of the file of the given signature.
+     */
+    public static String getFileName(MaterialSignature signature) {
+        return signature + FILE_EXTENSION;
+    }
+
+    /**
+     * Writes the given tablebase into a file named after its signature in the given directory,
+     * replacing any existing file.
+     * @param tablebase The tablebase to write.
+     * @param dir The directory to write into.
+     * @return The file written.
+     * @throws IOException If the file cannot be written.
+     */
+    public static File write(Tablebase tablebase, File dir) throws IOException {
+        int numPositions = tablebase.getSignature().getNumPositions();
+        int numBlocks = (numPositions + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        byte[][] blocks = IntStream.range(0, numBlocks).parallel()
+                .mapToObj(block -> compressBlock(tablebase, block * BLOCK_SIZE,
+                        Math.min(numPositions, (block + 1) * BLOCK_SIZE)))
+                .toArray(byte[][]::new);
+
+        File file = new File(dir, getFileName(tablebase.getSignature()));
+        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeInt(numPositions);
+            dos.writeInt(BLOCK_SIZE);
+            dos.writeInt(numBlocks);
+            long offset = HEADER_SIZE + 8L * (numBlocks + 1);
+            for (byte[] block : blocks) {
+                dos.writeLong(offset);
+                offset += block.length;
+            }
+            dos.writeLong(offset);
+            for (byte[] block : blocks) {
+                dos.write(block);
+            }
+        }
+
+        return file;
+    }
+
+    /**
+     * Returns the compressed values of the given range of positions of the given tablebase.
+     */
+    private static byte[] compressBlock(Tablebase tablebase, int start, int end) {
+        byte[] values = new byte[end - start];
+        for (int index = start; index < end; index++) {
+            values[index - start] = (byte) tablebase.getValue(index);
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(values);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,238 @@
+package com.chess.engine.tablebase;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtil;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Represents the tablebases probed by searches. Tables with files in a directory are memory-mapped when first
+ * probed, and the earliest mapped ones are released (to be unmapped by the garbage collector) once too many
+ * are mapped, so that probing a mapped table takes no lock. Tables without files but with few enough pieces are solved in memory in the background when first
+ * probed, and are not found until solved, so that searches never wait for them.
+ * Boards of non-canonical signatures are probed as their colour-flipped boards.
+ */
+public class Tablebases {
+
+    public static final String DEFAULT_DIR = "tablebases";
+    public static final int DEFAULT_MAX_SOLVED_PIECES = 4;
+    public static final int DEFAULT_MAX_MAPPED_FILES = 16;
+
+    private static final int MATERIAL_KEY_BITS = 3; // enough for the count of each piece type
+
+    private final Map<MaterialSignature, File> files;
+    private final int maxSolvedPieces;
+    private final int maxPieces;
+    private final int maxMappedFiles;
+    private final Map<MaterialSignature, Tablebase> mappedTablebases;
+    private final Deque<MaterialSignature> mappedSignatures; // in order of mapping, guarding the mapping of files
+    private final Map<MaterialSignature, Tablebase> solvedTablebases;
+    private final Set<MaterialSignature> requestedSolves; // solved, being solved or failed to solve
+    private final Map<Long, Lookup> lookups; // by material key of a board
+    private RetrogradeSolver solver; // created when first needed, and only used by the solve executor
+    private ExecutorService solveExecutor;
+
+    /**
+     * Creates the tablebases of the files in the given directory, if any,
+     * and of the signatures with up to the given number of pieces.
+     * @param dir The directory of tablebase files.
+     * @param maxSolvedPieces The maximum number of pieces of the tables solved in memory.
+     * @param maxMappedFiles The maximum number of files mapped at a time.
+     */
+    public Tablebases(File dir, int maxSolvedPieces, int maxMappedFiles) {
+        files = new ConcurrentHashMap<>();
+        File[] dirFiles = dir.listFiles((d, name) -> name.endsWith(TablebaseWriter.FILE_EXTENSION));
+        int maxFilePieces = 0;
+        if (dirFiles != null) {
+            for (File file : dirFiles) {
+                String name = file.getName();
+                try {
+                    MaterialSignature signature = MaterialSignature.of(
+                            name.substring(0, name.length() - TablebaseWriter.FILE_EXTENSION.length()));
+                    if (signature.isCanonical()) {
+                        files.put(signature, file);
+                        maxFilePieces = Math.max(maxFilePieces, signature.getNumPieces());
+                    }
+                } catch (IllegalArgumentException e) {
+                    // not a tablebase file
+                }
+            }
+        }
+        this.maxSolvedPieces = maxSolvedPieces;
+        maxPieces = Math.max(maxSolvedPieces, maxFilePieces);
+        this.maxMappedFiles = maxMappedFiles;
+        mappedTablebases = new ConcurrentHashMap<>();
+        mappedSignatures = new ArrayDeque<>();
+        solvedTablebases = new ConcurrentHashMap<>();
+        requestedSolves = ConcurrentHashMap.newKeySet();
+        lookups = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the default tablebases: the files in the directory "tablebases", if any,
+     * and the signatures of up to 4 pieces.
+     * @return The default tablebases.
+     */
+    public static Tablebases getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    /**
+     * Returns the maximum number of pieces of a board that may be found in these tablebases.
+     * @return The maximum number of pieces of a board that may be found in these tablebases.
+     */
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * Returns the value of the given board (from the perspective of its current player) if it is found
+     * in these tablebases, as defined by Tablebase.
+     * @param board The board to probe.
+     * @return The value of the given board, if it is found in these tablebases.
+     */
+    public OptionalInt probe(Board board) {
+        int numPieces = 0;
+        long materialKey = 0;
+        for (Alliance alliance : Alliance.values()) {
+            for (PieceType pieceType : PieceType.values()) {
+                int pieceCount = board.getPieceCount(alliance, pieceType);
+                numPieces += pieceCount;
+                materialKey = materialKey << MATERIAL_KEY_BITS | pieceCount;
+            }
+        }
+        if (numPieces > maxPieces) {
+            return OptionalInt.empty();
+        }
+
+        Lookup lookup = lookups.computeIfAbsent(materialKey, k -> new Lookup(MaterialSignature.of(board)));
+        Tablebase tablebase = getTablebase(lookup.signature);
+        if (tablebase == null) {
+            return OptionalInt.empty();
+        }
+
+        MaterialSignature signature = lookup.signature;
+        int[] squares = new int[signature.getNumPieces()];
+        boolean[] isPlaced = new boolean[squares.length];
+        for (Alliance alliance : Alliance.values()) {
+            for (Piece piece : board.getPlayer(alliance).getActivePieces()) {
+                Alliance tablebaseAlliance = lookup.isFlipped ? alliance.opposite() : alliance;
+                int square = BoardUtil.positionToIndex(piece.getPosition());
+                for (int i = 0; i < squares.length; i++) {
+                    if (!isPlaced[i] && signature.getPieceType(i) == piece.getPieceType()
+                            && signature.getAlliance(i) == tablebaseAlliance) {
+                        squares[i] = lookup.isFlipped ? MaterialSignature.flipSquare(square) : square;
+                        isPlaced[i] = true;
+                        break;
+                    }
+                }
+            }
+        }
+        Alliance currTurn = board.getCurrPlayer().getAlliance();
+        int index = signature.getIndex(squares, lookup.isFlipped ? currTurn.opposite() : currTurn);
+        if (index < 0) {
+            return OptionalInt.empty();
+        }
+
+        int value = tablebase.getValue(index);
+        return value == Tablebase.BROKEN ? OptionalInt.empty() : OptionalInt.of(value);
+    }
+
+    /**
+     * Returns the table of the given canonical signature, mapping it if needed,
+     * or null if there is none or it is not yet solved.
+     */
+    private Tablebase getTablebase(MaterialSignature signature) {
+        File file = files.get(signature);
+        if (file != null) {
+            Tablebase tablebase = mappedTablebases.get(signature);
+            if (tablebase != null) {
+                return tablebase;
+            }
+            synchronized (mappedSignatures) {
+                tablebase = mappedTablebases.get(signature);
+                if (tablebase != null) {
+                    return tablebase;
+                }
+                try {
+                    tablebase = new MappedTablebase(signature, file);
+                    mappedTablebases.put(signature, tablebase);
+                    mappedSignatures.add(signature);
+                    if (mappedSignatures.size() > maxMappedFiles) {
+                        mappedTablebases.remove(mappedSignatures.remove());
+                    }
+                    return tablebase;
+                } catch (IOException e) {
+                    files.remove(signature);
+                }
+            }
+        }
+
+        Tablebase tablebase = solvedTablebases.get(signature);
+        if (tablebase == null && signature.getNumPieces() <= maxSolvedPieces && requestedSolves.add(signature)) {
+            requestSolve(signature);
+        }
+        return tablebase;
+    }
+
+    /**
+     * Solves the table of the given canonical signature in the background, and keeps it along with the tables
+     * it depends on. A table that fails to solve is never requested again.
+     */
+    private synchronized void requestSolve(MaterialSignature signature) {
+        if (solveExecutor == null) {
+            solver = new RetrogradeSolver(Runtime.getRuntime().availableProcessors());
+            solveExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "Tablebases");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        solveExecutor.execute(() -> {
+            try {
+                solver.solve(signature);
+            } catch (IllegalStateException e) {
+                return;
+            }
+            for (Tablebase tablebase : solver.getTablebases()) {
+                solvedTablebases.putIfAbsent(tablebase.getSignature(), tablebase);
+            }
+        });
+    }
+
+    /**
+     * Represents the canonical signature of the signature of a board,
+     * and whether boards of that signature are flipped to probe it.
+     */
+    private static class Lookup {
+
+        private final MaterialSignature signature;
+        private final boolean isFlipped;
+
+        private Lookup(MaterialSignature boardSignature) {
+            signature = boardSignature.getCanonical();
+            isFlipped = !boardSignature.isCanonical();
+        }
+    }
+
+    /**
+     * Lazily creates the default tablebases.
+     */
+    private static class DefaultHolder {
+
+        private static final Tablebases DEFAULT = new Tablebases(new File(DEFAULT_DIR),
+                DEFAULT_MAX_SOLVED_PIECES, DEFAULT_MAX_MAPPED_FILES);
+    }
+}
@@ -1,6 +1,7 @@
 package com.chess.gui;
 
 import com.chess.engine.Alliance;
+import com.chess.engine.player.ai.NetworkEvaluator;
 import com.chess.gui.Table.PlayerType;
 import javafx.scene.Node;
 import javafx.scene.control.Alert;
@@ -43,6 +44,7 @@ class GameSetup extends Dialog {
     private int searchDepth;
     private int searchTime;
     private boolean isAIRandomised;
+    private boolean isAINetworkEvaluated;
 
     private GameSetup() {
         // default settings
@@ -52,6 +54,7 @@ class GameSetup extends Dialog {
         searchDepth = 5;
         searchTime = 10;
         isAIRandomised = false;
+        isAINetworkEvaluated = false;
 
         DialogPane dialogPane = new DialogPane();
         GridPane gridPane = new GridPane();
@@ -90,6 +93,10 @@ class GameSetup extends Dialog {
         CheckBox randomiseAICheckbox = new CheckBox("Randomise moves");
         randomiseAICheckbox.setAllowIndeterminate(false);
         randomiseAICheckbox.setSelected(isAIRandomised);
+        CheckBox networkAICheckbox = new CheckBox("Neural network evaluation");
+        networkAICheckbox.setAllowIndeterminate(false);
+        networkAICheckbox.setSelected(isAINetworkEvaluated);
+        networkAICheckbox.setDisable(!NetworkEvaluator.getDefault().isPresent());
 
         ButtonType cancel = new ButtonType("Cancel", ButtonData.CANCEL_CLOSE);
         ButtonType ok = new ButtonType("OK", ButtonData.OK_DONE);
@@ -114,6 +121,7 @@ class GameSetup extends Dialog {
             searchDepthSpinner.getEditor().textProperty().set(Integer.toString(searchDepth));
             searchTimeSpinner.getEditor().textProperty().set(Integer.toString(searchTime));
             randomiseAICheckbox.setSelected(isAIRandomised);
+            networkAICheckbox.setSelected(isAINetworkEvaluated);
         });
         Button okButton = (Button) dialogPane.lookupButton(ok);
         okButton.setOnAction(e -> {
@@ -139,6 +147,7 @@ class GameSetup extends Dialog {
                 searchTimeSpinner.getEditor().textProperty().set(Integer.toString(searchTime));
             }
             isAIRandomised = randomiseAICheckbox.isSelected();
+            isAINetworkEvaluated = networkAICheckbox.isSelected();
 
             hide();
         });
@@ -156,6 +165,7 @@ class GameSetup extends Dialog {
         nodes.add(fixedTimeAIButton);
         nodes.add(searchTimeSpinner);
         nodes.add(randomiseAICheckbox);
+        nodes.add(networkAICheckbox);
 
         for (int i = 0; i < nodes.size(); i++) {
             gridPane.add(nodes.get(i), 0, i);
@@ -184,6 +194,10 @@ class GameSetup extends Dialog {
         return isAIRandomised;
     }
 
+    boolean isAINetworkEvaluated() {
+        return isAINetworkEvaluated;
+    }
+
     int getSearchDepth() {
         return searchDepth;
     }
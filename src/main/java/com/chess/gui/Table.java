@@ -2,6 +2,7 @@ package com.chess.gui;
 
 import com.chess.CChess;
 import com.chess.engine.LoadGameUtil;
+import com.chess.engine.archive.GameRecord;
 import com.chess.engine.board.Board;
 import com.chess.engine.board.Coordinate;
 import com.chess.engine.board.Move;
@@ -10,6 +11,9 @@ import com.chess.engine.pieces.Piece;
 import com.chess.engine.player.ai.FixedDepthSearch;
 import com.chess.engine.player.ai.FixedTimeSearch;
 import com.chess.engine.player.ai.MoveBook;
+import com.chess.engine.player.ai.NetworkEvaluator;
+import com.chess.engine.player.ai.SearchConfig;
+import com.chess.engine.player.ai.SearchInfo;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
 import javafx.event.EventHandler;
@@ -464,14 +468,6 @@ public class Table extends BorderPane {
         propertyChangeSupport.firePropertyChange(propertyName, null, null);
     }
 
-    /**
-     * Checks if the current AI's moves are randomised.
-     * @return true if the current AI's moves are randomised, false otherwise.
-     */
-    public boolean isAIRandomised() {
-        return gameSetup.isAIRandomised();
-    }
-
     /**
      * Clears all mouse selections made by the human player.
      */
@@ -824,10 +820,16 @@ public class Table extends BorderPane {
 
         @Override
         public void propertyChange(PropertyChangeEvent evt) {
+            if (evt.getPropertyName().equals("movemade") && getInstance().board.isCurrPlayerCheckmated()) {
+                // the book learns each game played to the end
+                Board board = getInstance().board;
+                MoveBook.getDefault().learn(GameRecord.of(getInstance().fullMovelog.getMoves(),
+                        GameRecord.Result.getResult(board)));
+            }
             if (!Table.getInstance().moveHistoryPane.isInReplayMode()
                     && getInstance().gameSetup.isAIPlayer(getInstance().board.getCurrPlayer().getAlliance())
                     && !getInstance().board.isCurrPlayerCheckmated()) {
-                Optional<Move> move = MoveBook.getRandomMove(getInstance().board.getZobristKey());
+                Optional<Move> move = MoveBook.getRandomMove(getInstance().board);
                 if (move.isPresent()) {
                     task = getTimerTask(move.get());
                     timer.schedule(task, MIN_TIME);
@@ -940,6 +942,19 @@ public class Table extends BorderPane {
             return movedPiece;
         }
 
+        /**
+         * Returns the search settings based on the current game setup.
+         */
+        SearchConfig getSearchConfig() {
+            SearchConfig.Builder builder = new SearchConfig.Builder();
+            if (getInstance().gameSetup.isAINetworkEvaluated()) {
+                NetworkEvaluator.getDefault().ifPresent(builder::setEvaluator);
+            }
+            return builder
+                    .setRandomised(getInstance().gameSetup.isAIRandomised())
+                    .build();
+        }
+
         /**
          * Stops this AI player and its timer task.
          */
@@ -957,6 +972,7 @@ public class Table extends BorderPane {
     private static class FixedDepthAIPlayer extends AIPlayer {
 
         private Move bestMove;
+        private FixedDepthSearch search;
         private int searchDepth;
         private long startTime;
 
@@ -979,7 +995,8 @@ public class Table extends BorderPane {
             timer.schedule(task, AIObserver.MIN_TIME);
             startTime = System.currentTimeMillis();
             searchDepth = getInstance().gameSetup.getSearchDepth();
-            return new FixedDepthSearch(getInstance().board.getCopy(), legalMoves, searchDepth).search();
+            search = new FixedDepthSearch(getInstance().board.getCopy(), legalMoves, searchDepth, getSearchConfig());
+            return search.search();
         }
 
         /**
@@ -988,7 +1005,7 @@ public class Table extends BorderPane {
         private void move() {
             Platform.runLater(() -> AIObserver.makeMove(bestMove));
             System.out.println(bestMove.toString() + " | "
-                    + (System.currentTimeMillis() - startTime)/1000 + "s | " + "depth " + searchDepth);
+                    + (System.currentTimeMillis() - startTime)/1000 + "s | " + search.getSearchInfo());
         }
 
         /**
@@ -1012,7 +1029,7 @@ public class Table extends BorderPane {
     public static class FixedTimeAIPlayer extends AIPlayer implements PropertyChangeListener {
 
         private Move currBestMove;
-        private int currDepth;
+        private SearchInfo currSearchInfo;
         private int searchTime;
 
         @Override
@@ -1021,13 +1038,13 @@ public class Table extends BorderPane {
             searchTime = getInstance().gameSetup.getSearchTime();
             timer.schedule(task, searchTime * 1000);
             return new FixedTimeSearch(getInstance().board.getCopy(), legalMoves, this,
-                    System.currentTimeMillis() + searchTime*1000).search();
+                    System.currentTimeMillis() + searchTime*1000, getSearchConfig()).search();
         }
 
         @Override
         public void propertyChange(PropertyChangeEvent evt) {
-            currBestMove = (Move) evt.getNewValue();
-            currDepth = (int) evt.getOldValue();
+            currSearchInfo = (SearchInfo) evt.getNewValue();
+            currBestMove = currSearchInfo.getBestMove();
         }
 
         /**
@@ -1039,7 +1056,7 @@ public class Table extends BorderPane {
                 public void run() {
                     Platform.runLater(() -> AIObserver.makeMove(currBestMove));
                     System.out.println(currBestMove.toString() + " | "
-                            + searchTime + "s | " + "depth " + currDepth);
+                            + searchTime + "s | " + currSearchInfo);
                     FixedTimeAIPlayer.this.cancel(true);
                 }
             };
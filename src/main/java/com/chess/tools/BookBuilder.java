@@ -0,0 +1,280 @@
+package com.chess.tools;
+
+import com.chess.engine.LoadGameUtil;
+import com.chess.engine.archive.GameRecord;
+import com.chess.engine.archive.MappedGameArchive;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.ai.MoveBook;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An offline tool for building a weighted opening book from collections of games.
+ * Every (position, move) pair within the first plies of each game is counted with the result of its game,
+ * from the perspective of the player making the move; games of unknown result count as draws.
+ * Games are replayed in parallel and counted into shards of open-addressing tables keyed by primitive values,
+ * so that millions of games fit in memory. Moves played too rarely or scoring too low are pruned, and the rest
+ * are weighted by their points (2 per win, 1 per draw).
+ *
+ * Usage: BookBuilder output.bin input... [key=value]... where each input is a game archive file or a directory
+ * of saved games, with keys maxplies (default 20), mingames (default 3), minscore (default 0.3) and shards.
+ */
+public class BookBuilder {
+
+    private static final int MAX_WEIGHT = 0xFFFF;
+
+    private final Shard[] shards;
+    private final int maxPlies;
+    private final int minGames;
+    private final double minScore;
+
+    private BookBuilder(Map<String, String> options) {
+        maxPlies = Integer.parseInt(options.getOrDefault("maxplies", "20"));
+        minGames = Integer.parseInt(options.getOrDefault("mingames", "3"));
+        minScore = Double.parseDouble(options.getOrDefault("minscore", "0.3"));
+        int numShards = Integer.highestOneBit(Math.max(Integer.parseInt(options.getOrDefault("shards",
+                Integer.toString(4 * Runtime.getRuntime().availableProcessors()))), 1));
+        shards = new Shard[numShards];
+        for (int i = 0; i < numShards; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        List<File> inputs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            String[] tokens = args[i].split("=", 2);
+            if (tokens.length == 2) {
+                options.put(tokens[0], tokens[1]);
+            } else {
+                inputs.add(new File(args[i]));
+            }
+        }
+        if (args.length < 2 || inputs.isEmpty()) {
+            System.err.println("Usage: BookBuilder output.bin input... [key=value]...");
+            System.exit(1);
+        }
+
+        BookBuilder builder = new BookBuilder(options);
+        for (File input : inputs) {
+            long numGames = input.isDirectory() ? builder.addGameFiles(input) : builder.addArchive(input);
+            System.out.println(input + ": " + numGames + " games");
+        }
+        List<MoveBook.Entry> entries = builder.getEntries();
+        try (OutputStream out = new FileOutputStream(args[0])) {
+            MoveBook.write(entries, out);
+        }
+        System.out.println(entries.size() + " moves written");
+    }
+
+    /**
+     * Counts the games of the given archive and returns the number of games counted.
+     */
+    private long addArchive(File file) throws IOException {
+        MappedGameArchive archive = new MappedGameArchive(file);
+        return archive.replayAll(maxPlies, (board, move, ply, result) -> add(board, move, result));
+    }
+
+    /**
+     * Counts the saved games in the given directory and returns the number of games counted.
+     */
+    private long addGameFiles(File dir) {
+        File[] files = dir.listFiles(File::isFile);
+        if (files == null) {
+            return 0;
+        }
+        return Arrays.stream(files).parallel()
+                .map(LoadGameUtil::new)
+                .filter(LoadGameUtil::isValidFile)
+                .mapToLong(this::addGameFile)
+                .sum();
+    }
+
+    /**
+     * Counts the moves of the given saved game and returns the number of games counted.
+     */
+    private long addGameFile(LoadGameUtil loadGameUtil) {
+        GameRecord.Result result = GameRecord.Result.getResult(loadGameUtil.getBoard());
+        Board board = Board.initialiseBoard();
+        List<Move> moves = loadGameUtil.getMoves();
+        for (int ply = 0; ply < Math.min(moves.size(), maxPlies); ply++) {
+            Move move = board.getMove(moves.get(ply).getMovedPiece().getPosition(),
+                    moves.get(ply).getDestPosition()).get();
+            add(board, move, result);
+            board.makeMove(move);
+        }
+        return 1;
+    }
+
+    /**
+     * Counts the given move on the given board in a game with the given result.
+     */
+    private void add(Board board, Move move, GameRecord.Result result) {
+        long zobristKey = board.getZobristKey();
+        short encodedMove = GameRecord.encode(move);
+        int outcome; // 1 for a win, 0 for a draw, -1 for a loss of the player making the move
+        switch (result) {
+            case RED_WIN:
+                outcome = board.getCurrPlayer().getAlliance().isRed() ? 1 : -1;
+                break;
+            case BLACK_WIN:
+                outcome = board.getCurrPlayer().getAlliance().isRed() ? -1 : 1;
+                break;
+            default:
+                outcome = 0;
+        }
+        long hash = hash(zobristKey, encodedMove);
+        shards[(int) (hash >>> 32) & (shards.length - 1)].add(zobristKey, encodedMove, hash, outcome);
+    }
+
+    /**
+     * Returns a well-mixed hash of the given key and move.
+     */
+    private static long hash(long zobristKey, short move) {
+        long h = zobristKey ^ (move * 0x9E3779B97F4A7C15L);
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Returns the book entries of the moves that pass the pruning, weighted by their points.
+     * Weights are scaled down uniformly if the largest exceeds the book's limit.
+     */
+    private List<MoveBook.Entry> getEntries() {
+        long maxPoints = 0;
+        for (Shard shard : shards) {
+            for (int i = 0; i < shard.moves.length; i++) {
+                if (isKept(shard, i)) {
+                    maxPoints = Math.max(maxPoints, shard.getPoints(i));
+                }
+            }
+        }
+        double scale = maxPoints > MAX_WEIGHT ? (double) MAX_WEIGHT / maxPoints : 1;
+
+        List<MoveBook.Entry> entries = new ArrayList<>();
+        for (Shard shard : shards) {
+            for (int i = 0; i < shard.moves.length; i++) {
+                if (isKept(shard, i)) {
+                    int weight = (int) Math.max(1, Math.round(shard.getPoints(i) * scale));
+                    entries.add(new MoveBook.Entry(shard.keys[i], shard.moves[i], weight, 0));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Checks if the move in the given slot of the given shard passes the pruning.
+     */
+    private boolean isKept(Shard shard, int slot) {
+        int games = shard.getGames(slot);
+        return games > 0 && games >= minGames && shard.getPoints(slot) >= 2 * minScore * games;
+    }
+
+    /**
+     * Represents an open-addressing table of the results of (position, move) pairs, with linear probing.
+     * Empty slots have no games.
+     */
+    private static class Shard {
+
+        private static final int INITIAL_CAPACITY = 1 << 10;
+        private static final double MAX_LOAD = 0.6;
+
+        private long[] keys;
+        private short[] moves;
+        private int[] wins;
+        private int[] draws;
+        private int[] losses;
+        private int size;
+
+        private Shard() {
+            allocate(INITIAL_CAPACITY);
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            moves = new short[capacity];
+            wins = new int[capacity];
+            draws = new int[capacity];
+            losses = new int[capacity];
+        }
+
+        /**
+         * Counts the given outcome of the given move of the given key, whose hash is given.
+         */
+        private synchronized void add(long zobristKey, short move, long hash, int outcome) {
+            int slot = find(zobristKey, move, hash);
+            if (getGames(slot) == 0) {
+                keys[slot] = zobristKey;
+                moves[slot] = move;
+                size++;
+            }
+            if (outcome > 0) {
+                wins[slot]++;
+            } else if (outcome < 0) {
+                losses[slot]++;
+            } else {
+                draws[slot]++;
+            }
+            if (size > MAX_LOAD * keys.length) {
+                grow();
+            }
+        }
+
+        /**
+         * Returns the slot of the given move of the given key, or the empty slot where it belongs.
+         */
+        private int find(long zobristKey, short move, long hash) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (getGames(slot) > 0 && (keys[slot] != zobristKey || moves[slot] != move)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Doubles the capacity of this shard and reinserts its entries.
+         */
+        private void grow() {
+            long[] oldKeys = keys;
+            short[] oldMoves = moves;
+            int[] oldWins = wins;
+            int[] oldDraws = draws;
+            int[] oldLosses = losses;
+            allocate(oldKeys.length * 2);
+
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldWins[i] + oldDraws[i] + oldLosses[i] == 0) continue;
+                int slot = find(oldKeys[i], oldMoves[i], hash(oldKeys[i], oldMoves[i]));
+                keys[slot] = oldKeys[i];
+                moves[slot] = oldMoves[i];
+                wins[slot] = oldWins[i];
+                draws[slot] = oldDraws[i];
+                losses[slot] = oldLosses[i];
+            }
+        }
+
+        private int getGames(int slot) {
+            return wins[slot] + draws[slot] + losses[slot];
+        }
+
+        /**
+         * Returns the points of the move in the given slot: 2 per win and 1 per draw.
+         */
+        private long getPoints(int slot) {
+            return 2L * wins[slot] + draws[slot];
+        }
+    }
+}
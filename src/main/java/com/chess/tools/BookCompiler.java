@@ -0,0 +1,108 @@
+package com.chess.tools;
+
+import com.chess.engine.archive.GameRecord;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.BoardUtil;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.ai.MoveBook;
+
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An offline tool for compiling a text opening book into the binary book read by MoveBook.
+ * The text book is a tree of moves in the notation of saved games: each line continues the line above it
+ * from the move at its indent level, with 7 spaces per move. Every move is stored together with its mirror
+ * (about the middle column), all with a weight of 1.
+ *
+ * Usage: BookCompiler movebook.txt movebook.bin
+ */
+public class BookCompiler {
+
+    private static final int INDENT_SPACES = 7;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BookCompiler movebook.txt movebook.bin");
+            System.exit(1);
+        }
+
+        Map<Long, List<Short>> book = readTextBook(args[0]);
+        List<MoveBook.Entry> entries = new ArrayList<>();
+        for (Map.Entry<Long, List<Short>> entry : book.entrySet()) {
+            for (short move : entry.getValue()) {
+                entries.add(new MoveBook.Entry(entry.getKey(), move, 1, 0));
+            }
+        }
+        try (OutputStream out = new FileOutputStream(args[1])) {
+            MoveBook.write(entries, out);
+        }
+        System.out.println(book.size() + " positions, " + entries.size() + " moves");
+    }
+
+    /**
+     * Reads the given text book into a map from Zobrist keys to encoded moves.
+     */
+    private static Map<Long, List<Short>> readTextBook(String path) throws IOException {
+        Map<Long, List<Short>> book = new LinkedHashMap<>();
+        Board board = Board.initialiseBoard();
+        List<Move> moveHistory = new ArrayList<>();
+        int currIndentLevel = 0;
+
+        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
+            String str;
+            while ((str = br.readLine()) != null) {
+                String trimmedStr = str.trim();
+                if (trimmedStr.isEmpty()) continue;
+                int spaces = str.indexOf(trimmedStr);
+                if (spaces % INDENT_SPACES != 0) {
+                    throw new IOException("Invalid indent: " + str);
+                }
+                int indentLevel = spaces / INDENT_SPACES;
+                for (int i = 0; i < currIndentLevel - indentLevel; i++) {
+                    board.unmakeMove(moveHistory.remove(moveHistory.size() - 1));
+                }
+                String[] moveSequence = trimmedStr.split("\\s+");
+                currIndentLevel = indentLevel + moveSequence.length;
+
+                for (String moveStr : moveSequence) {
+                    Optional<Move> move = Move.stringToMove(board, moveStr);
+                    if (!move.isPresent()) {
+                        throw new IOException("Invalid move: " + moveStr);
+                    }
+                    addMove(book, board.getZobristKey(), GameRecord.encode(move.get()));
+
+                    // store mirrored version of move
+                    Board mirrorBoard = board.getMirrorBoard();
+                    Move mirrorMove = mirrorBoard.getMove(
+                            BoardUtil.getMirrorPosition(move.get().getMovedPiece().getPosition()),
+                            BoardUtil.getMirrorPosition(move.get().getDestPosition())).get();
+                    addMove(book, mirrorBoard.getZobristKey(), GameRecord.encode(mirrorMove));
+
+                    board.makeMove(move.get());
+                    moveHistory.add(move.get());
+                }
+            }
+        }
+
+        return book;
+    }
+
+    /**
+     * Adds the given move of the given key to the given book, unless it is already there.
+     */
+    private static void addMove(Map<Long, List<Short>> book, long zobristKey, short move) {
+        List<Short> moves = book.computeIfAbsent(zobristKey, k -> new ArrayList<>());
+        if (!moves.contains(move)) {
+            moves.add(move);
+        }
+    }
+}
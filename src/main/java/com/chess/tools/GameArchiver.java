@@ -0,0 +1,46 @@
+package com.chess.tools;
+
+import com.chess.engine.LoadGameUtil;
+import com.chess.engine.archive.GameArchiveWriter;
+import com.chess.engine.archive.GameRecord;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A tool for converting a directory of saved games into a binary game archive.
+ * Games ending in checkmate are recorded as wins; other results are unknown.
+ *
+ * Usage: GameArchiver gamesDir archiveFile
+ */
+public class GameArchiver {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: GameArchiver gamesDir archiveFile");
+            System.exit(1);
+        }
+        File[] files = new File(args[0]).listFiles(File::isFile);
+        if (files == null) {
+            System.err.println("Invalid games directory");
+            System.exit(1);
+        }
+        Arrays.sort(files);
+
+        int numGames = 0;
+        int numInvalid = 0;
+        try (GameArchiveWriter writer = new GameArchiveWriter(new File(args[1]))) {
+            for (File file : files) {
+                LoadGameUtil loadGameUtil = new LoadGameUtil(file);
+                if (!loadGameUtil.isValidFile()) {
+                    numInvalid++;
+                    continue;
+                }
+                writer.write(loadGameUtil.getMoves(), GameRecord.Result.getResult(loadGameUtil.getBoard()));
+                numGames++;
+            }
+        }
+        System.out.println(numGames + " games archived, " + numInvalid + " invalid files skipped");
+    }
+}
@@ -0,0 +1,413 @@
+package com.chess.tools;
+
+import com.chess.engine.archive.GameRecord;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.player.ai.BoardEvaluator;
+import com.chess.engine.player.ai.CachedEvaluator;
+import com.chess.engine.player.ai.EvalCache;
+import com.chess.engine.player.ai.Evaluator;
+import com.chess.engine.player.ai.FixedDepthSearch;
+import com.chess.engine.player.ai.FixedTimeSearch;
+import com.chess.engine.player.ai.MaterialEvaluator;
+import com.chess.engine.player.ai.MoveBook;
+import com.chess.engine.player.ai.NetworkEvaluator;
+import com.chess.engine.player.ai.ProfilingEvaluator;
+import com.chess.engine.player.ai.SearchConfig;
+import com.chess.engine.player.ai.SearchInfo;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A headless tool for playing games between two engine configurations, A and B, to measure their difference.
+ * Games are played in pairs from the same opening line out of the move book, with the colours swapped,
+ * and the results of finished games are learnt by the book.
+ * Reports the Elo difference of A over B with a 95% error bar, the average depth and speed of each configuration,
+ * and stops early when a sequential probability ratio test (SPRT) accepts either hypothesis.
+ *
+ * Usage: SelfPlay [key=value]... with keys
+ * games, threads, bookplies, maxplies, elo0, elo1, alpha, beta, learnbook (a book file read if it exists,
+ * and written with the learnt values after the match),
+ * and a.depth, a.time (ms per move), a.eval (classic, material, network, or profile for the classic evaluator
+ * reporting the time spent in its terms), a.tt (entries), likewise for b.
+ */
+public class SelfPlay {
+
+    private static final int RED_WIN = 1;
+    private static final int DRAW = 0;
+    private static final int BLACK_WIN = -1;
+    private static final int MAX_REPETITIONS = 3;
+
+    private final EngineConfig configA;
+    private final EngineConfig configB;
+    private final int numGames;
+    private final int bookPlies;
+    private final int maxPlies;
+    private final MoveBook book;
+    private final double lowerBound; // SPRT log-likelihood ratio bound for accepting H0
+    private final double upperBound; // SPRT log-likelihood ratio bound for accepting H1
+    private final double score0; // expected score under H0
+    private final double score1; // expected score under H1
+    private final Stats statsA;
+    private final Stats statsB;
+    private int wins, draws, losses; // results of A
+    private boolean isStopped;
+
+    private SelfPlay(Map<String, String> options) throws IOException {
+        configA = new EngineConfig(options, "a");
+        configB = new EngineConfig(options, "b");
+        numGames = Integer.parseInt(options.getOrDefault("games", "100"));
+        if (numGames <= 0) {
+            throw new IllegalArgumentException("Invalid number of games " + numGames);
+        }
+        bookPlies = Integer.parseInt(options.getOrDefault("bookplies", "8"));
+        maxPlies = Integer.parseInt(options.getOrDefault("maxplies", "300"));
+        book = readBook(options.get("learnbook"));
+        double alpha = Double.parseDouble(options.getOrDefault("alpha", "0.05"));
+        double beta = Double.parseDouble(options.getOrDefault("beta", "0.05"));
+        lowerBound = Math.log(beta / (1 - alpha));
+        upperBound = Math.log((1 - beta) / alpha);
+        score0 = getExpectedScore(Double.parseDouble(options.getOrDefault("elo0", "0")));
+        score1 = getExpectedScore(Double.parseDouble(options.getOrDefault("elo1", "10")));
+        statsA = new Stats();
+        statsB = new Stats();
+    }
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] tokens = arg.split("=", 2);
+            if (tokens.length != 2) {
+                System.err.println("Invalid option " + arg);
+                System.exit(1);
+            }
+            options.put(tokens[0].toLowerCase(), tokens[1]);
+        }
+        int numThreads;
+        SelfPlay selfPlay;
+        try {
+            numThreads = Integer.parseInt(options.getOrDefault("threads",
+                    Integer.toString(Runtime.getRuntime().availableProcessors())));
+            if (numThreads <= 0) {
+                throw new IllegalArgumentException("Invalid number of threads " + numThreads);
+            }
+            selfPlay = new SelfPlay(options);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        System.out.println("A: " + selfPlay.configA);
+        System.out.println("B: " + selfPlay.configB);
+        selfPlay.run(numThreads);
+        if (options.containsKey("learnbook")) {
+            try (OutputStream out = new FileOutputStream(options.get("learnbook"))) {
+                selfPlay.book.write(out);
+            }
+        }
+    }
+
+    /**
+     * Reads the book at the given file if it exists, or returns the default book.
+     */
+    private static MoveBook readBook(String fileName) throws IOException {
+        if (fileName == null || !new File(fileName).isFile()) {
+            return MoveBook.getDefault();
+        }
+        try (InputStream in = new FileInputStream(fileName)) {
+            return MoveBook.read(in);
+        }
+    }
+
+    /**
+     * Plays the games in pairs on the given number of threads, until all are played or the SPRT stops.
+     * With an odd number of games, the last pair only plays its first game.
+     */
+    private void run(int numThreads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        for (int i = 0; i < numGames; i += 2) {
+            boolean isFullPair = i + 1 < numGames;
+            executor.submit(() -> {
+                try {
+                    playPair(isFullPair);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        printReport();
+    }
+
+    /**
+     * Plays two games from the same opening line, with A as RED and then as BLACK,
+     * or only the first if the pair is not full.
+     */
+    private void playPair(boolean isFullPair) {
+        if (isStopped()) return;
+        List<Move> opening = getOpening();
+        int result = playGame(opening, configA, statsA, configB, statsB);
+        addResult(result);
+        if (!isFullPair || isStopped()) return;
+        result = playGame(opening, configB, statsB, configA, statsA);
+        addResult(-result);
+    }
+
+    /**
+     * Returns a random line of book moves from the starting board.
+     */
+    private List<Move> getOpening() {
+        Board board = Board.initialiseBoard();
+        List<Move> opening = new ArrayList<>();
+        for (int ply = 0; ply < bookPlies; ply++) {
+            Optional<Move> bookMove = book.getMove(board, MoveBook.Selection.WEIGHTED);
+            if (!bookMove.isPresent()) break;
+            board.makeMove(bookMove.get());
+            opening.add(bookMove.get());
+        }
+        return opening;
+    }
+
+    /**
+     * Plays a game after the given opening, has the book learn it and returns its result.
+     * A game is drawn on a threefold repetition or when it reaches the maximum number of plies.
+     */
+    private int playGame(List<Move> opening, EngineConfig redConfig, Stats redStats,
+                         EngineConfig blackConfig, Stats blackStats) {
+        Board board = Board.initialiseBoard();
+        Map<Long, Integer> repetitions = new HashMap<>();
+        List<Move> moves = new ArrayList<>(opening);
+        for (Move move : opening) {
+            board.makeMove(move);
+        }
+
+        int result = DRAW;
+        for (int ply = opening.size(); ply < maxPlies; ply++) {
+            List<Move> legalMoves = board.getAllowedMoves();
+            if (legalMoves.isEmpty()) {
+                result = board.getCurrPlayer().getAlliance().isRed() ? BLACK_WIN : RED_WIN;
+                break;
+            }
+            if (repetitions.merge(board.getZobristKey(), 1, Integer::sum) >= MAX_REPETITIONS) {
+                break;
+            }
+
+            boolean isRedTurn = board.getCurrPlayer().getAlliance().isRed();
+            EngineConfig config = isRedTurn ? redConfig : blackConfig;
+            Stats stats = isRedTurn ? redStats : blackStats;
+            Move move = config.search(board, legalMoves, stats);
+            move = board.getMove(move.getMovedPiece().getPosition(), move.getDestPosition()).get();
+            board.makeMove(move);
+            moves.add(move);
+        }
+
+        book.learn(GameRecord.of(moves, result == RED_WIN ? GameRecord.Result.RED_WIN
+                : result == BLACK_WIN ? GameRecord.Result.BLACK_WIN : GameRecord.Result.DRAW));
+        return result;
+    }
+
+    /**
+     * Records the given result of A and checks the SPRT.
+     */
+    private synchronized void addResult(int result) {
+        if (result > 0) {
+            wins++;
+        } else if (result < 0) {
+            losses++;
+        } else {
+            draws++;
+        }
+        double llr = getLlr();
+        System.out.printf("game %d: +%d =%d -%d, LLR %.2f [%.2f, %.2f]%n",
+                wins + draws + losses, wins, draws, losses, llr, lowerBound, upperBound);
+        if (llr <= lowerBound || llr >= upperBound) {
+            isStopped = true;
+        }
+    }
+
+    private synchronized boolean isStopped() {
+        return isStopped;
+    }
+
+    /**
+     * Returns the mean score of A per game.
+     */
+    private double getScore() {
+        return (wins + draws / 2.0) / (wins + draws + losses);
+    }
+
+    /**
+     * Returns the variance of the score of A per game.
+     */
+    private double getVariance() {
+        int n = wins + draws + losses;
+        double score = getScore();
+        return (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / n;
+    }
+
+    /**
+     * Returns the log-likelihood ratio of H1 against H0, using the normal approximation of the trinomial model.
+     */
+    private double getLlr() {
+        int n = wins + draws + losses;
+        double variance = getVariance();
+        if (variance == 0) return 0;
+        return n * (score1 - score0) * (2 * getScore() - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * Returns the expected score for the given Elo difference.
+     */
+    private static double getExpectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+
+    /**
+     * Returns the Elo difference for the given expected score.
+     */
+    private static double getElo(double score) {
+        score = Math.min(Math.max(score, 1e-6), 1 - 1e-6);
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    private synchronized void printReport() {
+        int n = wins + draws + losses;
+        if (n == 0) return;
+        double score = getScore();
+        double error = 1.96 * Math.sqrt(getVariance() / n);
+        double elo = getElo(score);
+        System.out.println();
+        System.out.printf("games %d: +%d =%d -%d, score %.1f%%%n", n, wins, draws, losses, 100 * score);
+        System.out.printf("Elo A-B %.1f +/- %.1f%n", elo, (getElo(score + error) - getElo(score - error)) / 2);
+        double llr = getLlr();
+        System.out.println("SPRT " + (llr >= upperBound ? "H1 accepted" : llr <= lowerBound ? "H0 accepted" : "inconclusive")
+                + String.format(" (LLR %.2f)", llr));
+        System.out.println("A: " + statsA);
+        System.out.println("B: " + statsB);
+        if (configA.profilingEvaluator != null) {
+            System.out.print("A evaluation profile:" + System.lineSeparator() + configA.profilingEvaluator);
+        }
+        if (configB.profilingEvaluator != null) {
+            System.out.print("B evaluation profile:" + System.lineSeparator() + configB.profilingEvaluator);
+        }
+    }
+
+    /**
+     * Represents the settings of an engine in the match.
+     */
+    private static class EngineConfig {
+
+        private final int depth;
+        private final long time;
+        private final String evaluatorName;
+        private final Evaluator evaluator;
+        private final ProfilingEvaluator profilingEvaluator; // null unless profiling
+        private final int ttSize;
+        private final SearchConfig config;
+
+        private EngineConfig(Map<String, String> options, String prefix) {
+            time = Long.parseLong(options.getOrDefault(prefix + ".time", "0"));
+            depth = Integer.parseInt(options.getOrDefault(prefix + ".depth", time > 0 ? "0" : "4"));
+            evaluatorName = options.getOrDefault(prefix + ".eval", "classic");
+            profilingEvaluator = evaluatorName.equals("profile") ? new ProfilingEvaluator() : null;
+            switch (evaluatorName) {
+                case "classic":
+                    // each engine caches its own evaluations so that the two do not share entries
+                    evaluator = new CachedEvaluator(BoardEvaluator.getInstance(), new EvalCache(1 << 20));
+                    break;
+                case "profile":
+                    // profiles the evaluations missing the cache, as searched with the classic evaluator
+                    evaluator = new CachedEvaluator(profilingEvaluator, new EvalCache(1 << 20));
+                    break;
+                case "material":
+                    evaluator = MaterialEvaluator.getInstance();
+                    break;
+                case "network":
+                    evaluator = NetworkEvaluator.getDefault()
+                            .orElseThrow(() -> new IllegalArgumentException("No network found"));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid evaluator " + evaluatorName);
+            }
+            SearchConfig defaultConfig = SearchConfig.getDefault();
+            ttSize = Integer.parseInt(options.getOrDefault(prefix + ".tt", Integer.toString(defaultConfig.getTTSize())));
+            if (time <= 0 && depth <= 0) {
+                throw new IllegalArgumentException("Invalid depth " + depth + " of " + prefix);
+            }
+            config = new SearchConfig.Builder()
+                    .setEvaluator(evaluator)
+                    .setTTSize(ttSize)
+                    .build();
+        }
+
+        /**
+         * Searches the given board and returns the best move, adding the search information to the given stats.
+         */
+        private Move search(Board board, Collection<Move> legalMoves, Stats stats) {
+            Move move;
+            SearchInfo searchInfo;
+            if (time > 0) {
+                FixedTimeSearch search = new FixedTimeSearch(board.getCopy(), legalMoves, e -> {},
+                        System.currentTimeMillis() + time, config);
+                move = search.search();
+                searchInfo = search.getSearchInfo();
+            } else {
+                FixedDepthSearch search = new FixedDepthSearch(board.getCopy(), legalMoves, depth, config);
+                move = search.search();
+                searchInfo = search.getSearchInfo();
+            }
+            if (searchInfo != null) {
+                stats.add(searchInfo);
+            }
+            return move;
+        }
+
+        @Override
+        public String toString() {
+            return (time > 0 ? "time " + time + "ms" : "depth " + depth) + ", eval " + evaluatorName + ", tt " + ttSize;
+        }
+    }
+
+    /**
+     * Represents the totals of the searches of an engine.
+     */
+    private static class Stats {
+
+        private long searches;
+        private long totalDepth;
+        private long totalNodes;
+        private long totalTime;
+
+        private synchronized void add(SearchInfo searchInfo) {
+            searches++;
+            totalDepth += searchInfo.getDepth();
+            totalNodes += searchInfo.getNodes();
+            totalTime += searchInfo.getTime();
+        }
+
+        @Override
+        public synchronized String toString() {
+            if (searches == 0) {
+                return "no searches";
+            }
+            return String.format("%d searches, average depth %.2f, %d nps", searches, (double) totalDepth / searches,
+                    totalTime == 0 ? 0 : totalNodes * 1000 / totalTime);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.chess.tools;
+
+import com.chess.engine.tablebase.MaterialSignature;
+import com.chess.engine.tablebase.RetrogradeSolver;
+import com.chess.engine.tablebase.Tablebase;
+import com.chess.engine.tablebase.TablebaseWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An offline tool for generating endgame tablebases by retrograde analysis.
+ * The tables of the given material signatures, and of all the smaller signatures they capture into,
+ * are solved in memory and written into the output directory as block-compressed files.
+ *
+ * Usage: TablebaseGenerator outputDir [signature]... [threads=N] where signatures are written as e.g. KRKAA,
+ * defaulting to a set of common endings.
+ */
+public class TablebaseGenerator {
+
+    private static final List<String> DEFAULT_SIGNATURES = List.of(
+            "KRKAA", "KRKBB", "KRKAB", "KRKN", "KRKC", "KRKP", "KNPK", "KCPK", "KPPK", "KNKA", "KNKB");
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        List<MaterialSignature> signatures = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            String[] tokens = args[i].split("=", 2);
+            if (tokens.length == 2) {
+                options.put(tokens[0].toLowerCase(), tokens[1]);
+            } else {
+                signatures.add(MaterialSignature.of(args[i]));
+            }
+        }
+        if (args.length < 1) {
+            System.err.println("Usage: TablebaseGenerator outputDir [signature]... [threads=N]");
+            System.exit(1);
+        }
+        if (signatures.isEmpty()) {
+            DEFAULT_SIGNATURES.forEach(name -> signatures.add(MaterialSignature.of(name)));
+        }
+        int numThreads = Integer.parseInt(options.getOrDefault("threads",
+                Integer.toString(Runtime.getRuntime().availableProcessors())));
+
+        File outputDir = new File(args[0]);
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create " + outputDir);
+        }
+        RetrogradeSolver solver = new RetrogradeSolver(numThreads);
+        long startTime = System.currentTimeMillis();
+        for (MaterialSignature signature : signatures) {
+            solver.solve(signature);
+        }
+        System.out.println("Solved in " + (System.currentTimeMillis() - startTime) + "ms");
+
+        for (Tablebase tablebase : solver.getTablebases()) {
+            File file = TablebaseWriter.write(tablebase, outputDir);
+            printStats(tablebase, file);
+        }
+    }
+
+    /**
+     * Prints the numbers of wins, losses and draws of the given tablebase and its longest mate.
+     */
+    private static void printStats(Tablebase tablebase, File file) {
+        long numWins = 0;
+        long numLosses = 0;
+        long numDraws = 0;
+        int maxDistance = 0;
+        for (int index = 0; index < tablebase.getSignature().getNumPositions(); index++) {
+            int value = tablebase.getValue(index);
+            if (Tablebase.isWin(value)) {
+                numWins++;
+            } else if (Tablebase.isLoss(value)) {
+                numLosses++;
+            } else if (value == Tablebase.DRAW) {
+                numDraws++;
+                continue;
+            } else {
+                continue;
+            }
+            maxDistance = Math.max(maxDistance, Tablebase.getDistance(value));
+        }
+        System.out.printf("%s: %d wins, %d losses, %d draws, longest mate %d plies, %d bytes%n",
+                tablebase.getSignature(), numWins, numLosses, numDraws, maxDistance, file.length());
+    }
+}
@@ -0,0 +1,462 @@
+package com.chess.tools;
+
+import com.chess.engine.Alliance;
+import com.chess.engine.LoadGameUtil;
+import com.chess.engine.board.Board;
+import com.chess.engine.board.Move;
+import com.chess.engine.pieces.Piece;
+import com.chess.engine.pieces.Piece.PieceType;
+import com.chess.engine.player.ai.BoardEvaluator;
+import com.chess.engine.player.ai.EvalParams;
+import com.chess.engine.player.ai.EvalParams.Param;
+import com.chess.engine.player.ai.Evaluator;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * An offline tool for tuning the parameters of the classic evaluation by the Texel method.
+ * Positions from saved games are labelled with the result of their game and resolved by a quiescence search.
+ * The parameters are then optimised by gradient descent (Adam) on the log-loss between the predicted
+ * and actual results. Piece-square values enter the evaluation linearly, so their gradients are exact;
+ * the other parameters use finite differences.
+ * The tuned values are written as the resources read by EvalParams and PieceType.
+ *
+ * Usage: TexelTuner gamesDir outputDir [iterations]
+ */
+public class TexelTuner {
+
+    private static final int DEFAULT_ITERATIONS = 200;
+    private static final int NEG_INF = Integer.MIN_VALUE + 1;
+    private static final int POS_INF = Integer.MAX_VALUE;
+    private static final int MIN_PLY = 10; // positions before this ply are mostly book moves
+    private static final int MAX_QUIESCENCE_PLY = 8;
+    private static final int DIFF_STEP = 8; // step of finite differences of non-linear parameters
+    private static final double LEARNING_RATE = 1.0;
+    private static final double BETA1 = 0.9;
+    private static final double BETA2 = 0.999;
+    private static final double EPSILON = 1e-8;
+    private static final double MIN_SCALE = 0.0005;
+    private static final double MAX_SCALE = 0.02;
+    private static final int NUM_POINTS = Board.NUM_ROWS * Board.NUM_COLS;
+    private static final int NUM_TABLE_VALUES = PieceType.values().length * NUM_POINTS;
+
+    private final List<List<Move>> games;
+    private final List<Double> results; // results of games, from RED's perspective
+    private final List<List<Sample>> samples; // samples of each game, in order of ply
+    private final List<ScalarParam> scalarParams;
+    private final double[] scalars; // tuned values of scalar parameters
+    private final double[] midgameValues; // tuned midgame piece-square values
+    private final double[] endgameValues; // tuned endgame piece-square values
+    private double scale; // scale of evaluations in the sigmoid
+
+    private TexelTuner(List<List<Move>> games, List<Double> results) {
+        this.games = games;
+        this.results = results;
+        samples = new ArrayList<>();
+        scalarParams = new ArrayList<>();
+        EvalParams params = EvalParams.getDefault();
+        for (Param param : Param.values()) {
+            if (!param.isTunable()) continue;
+            for (int i = 0; i < param.getSize(); i++) {
+                scalarParams.add(new ScalarParam(param, i));
+            }
+        }
+        scalars = new double[scalarParams.size()];
+        for (int i = 0; i < scalars.length; i++) {
+            ScalarParam scalarParam = scalarParams.get(i);
+            scalars[i] = params.get(scalarParam.param, scalarParam.index);
+        }
+        midgameValues = new double[NUM_TABLE_VALUES];
+        endgameValues = new double[NUM_TABLE_VALUES];
+        for (PieceType pieceType : PieceType.values()) {
+            for (int row = 0; row < Board.NUM_ROWS; row++) {
+                for (int col = 0; col < Board.NUM_COLS; col++) {
+                    int index = pieceType.ordinal() * NUM_POINTS + row * Board.NUM_COLS + col;
+                    midgameValues[index] = pieceType.getMidgameValue(row, col);
+                    endgameValues[index] = pieceType.getEndgameValue(row, col);
+                }
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TexelTuner gamesDir outputDir [iterations]");
+            System.exit(1);
+        }
+        File[] files = new File(args[0]).listFiles(File::isFile);
+        if (files == null) {
+            System.err.println("Invalid games directory");
+            System.exit(1);
+        }
+        File outputDir = new File(args[1]);
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_ITERATIONS;
+
+        List<List<Move>> games = new ArrayList<>();
+        List<Double> results = new ArrayList<>();
+        for (File file : files) {
+            LoadGameUtil loadGameUtil = new LoadGameUtil(file);
+            if (!loadGameUtil.isValidFile()) continue;
+            games.add(loadGameUtil.getMoves());
+            results.add(getResult(loadGameUtil.getBoard()));
+        }
+
+        TexelTuner tuner = new TexelTuner(games, results);
+        tuner.resolveSamples();
+        tuner.fitScale();
+        tuner.tune(iterations);
+        tuner.write(outputDir);
+    }
+
+    /**
+     * Returns the result of a game ending on the given board, from RED's perspective.
+     * Games not ending in checkmate are counted as draws.
+     */
+    private static double getResult(Board board) {
+        if (!board.isCurrPlayerCheckmated()) {
+            return 0.5;
+        }
+        return board.getCurrPlayer().getAlliance().isRed() ? 0 : 1;
+    }
+
+    /**
+     * Collects the positions of every game (skipping the opening and positions in check),
+     * each with the line of its quiescence search under the default evaluation.
+     */
+    private void resolveSamples() {
+        Evaluator evaluator = BoardEvaluator.getInstance();
+        List<List<Sample>> gameSamples = IntStream.range(0, games.size()).parallel()
+                .mapToObj(game -> {
+                    List<Sample> list = new ArrayList<>();
+                    Board board = Board.initialiseBoard();
+                    List<Move> moves = games.get(game);
+                    for (int ply = 0; ply < moves.size(); ply++) {
+                        if (ply >= MIN_PLY && !board.getCurrPlayer().isInCheck()) {
+                            List<Move> line = new ArrayList<>();
+                            quiescence(board, evaluator, NEG_INF, POS_INF, 0, line);
+                            list.add(new Sample(ply, line));
+                        }
+                        board.makeMove(moves.get(ply));
+                    }
+                    return list;
+                })
+                .collect(Collectors.toList());
+        samples.addAll(gameSamples);
+        System.out.println(games.size() + " games, "
+                + samples.stream().mapToInt(List::size).sum() + " positions");
+    }
+
+    /**
+     * Searches captures only from the given board and stores the best line into the given list.
+     * Returns the value of the board from the current player's perspective.
+     */
+    private static int quiescence(Board board, Evaluator evaluator, int alpha, int beta, int ply, List<Move> line) {
+        int color = board.getCurrPlayer().getAlliance().isRed() ? 1 : -1;
+        int bestVal = evaluator.evaluate(board) * color;
+        if (bestVal >= beta || ply >= MAX_QUIESCENCE_PLY) {
+            return bestVal;
+        }
+        alpha = Math.max(alpha, bestVal);
+
+        List<Move> childLine = new ArrayList<>();
+        for (Move move : board.getCurrPlayer().getLegalMoves()) {
+            if (!move.isCapture()) continue;
+            board.makeMove(move);
+            if (!board.isStateAllowed()) {
+                board.unmakeMove(move);
+                continue;
+            }
+            childLine.clear();
+            int val = -quiescence(board, evaluator, -beta, -alpha, ply + 1, childLine);
+            board.unmakeMove(move);
+
+            if (val > bestVal) {
+                bestVal = val;
+                line.clear();
+                line.add(move);
+                line.addAll(childLine);
+            }
+            alpha = Math.max(alpha, val);
+            if (alpha >= beta) break;
+        }
+
+        return bestVal;
+    }
+
+    /**
+     * Finds the scale of evaluations that minimises the loss of the current parameters (ternary search).
+     */
+    private void fitScale() {
+        double low = MIN_SCALE;
+        double high = MAX_SCALE;
+        for (int i = 0; i < 20; i++) {
+            double mid1 = low + (high - low) / 3;
+            double mid2 = high - (high - low) / 3;
+            scale = mid1;
+            double loss1 = runPass(false).getLoss();
+            scale = mid2;
+            double loss2 = runPass(false).getLoss();
+            if (loss1 < loss2) {
+                high = mid2;
+            } else {
+                low = mid1;
+            }
+        }
+        scale = (low + high) / 2;
+        System.out.printf("scale %.6f, loss %.6f%n", scale, runPass(false).getLoss());
+    }
+
+    /**
+     * Optimises the parameters for the given number of iterations.
+     */
+    private void tune(int iterations) {
+        int numParams = scalars.length + 2 * NUM_TABLE_VALUES;
+        double[] m = new double[numParams];
+        double[] v = new double[numParams];
+
+        for (int t = 1; t <= iterations; t++) {
+            Pass pass = runPass(true);
+            double[] gradient = pass.getGradient();
+            for (int i = 0; i < numParams; i++) {
+                m[i] = BETA1 * m[i] + (1 - BETA1) * gradient[i];
+                v[i] = BETA2 * v[i] + (1 - BETA2) * gradient[i] * gradient[i];
+                double mHat = m[i] / (1 - Math.pow(BETA1, t));
+                double vHat = v[i] / (1 - Math.pow(BETA2, t));
+                double step = LEARNING_RATE * mHat / (Math.sqrt(vHat) + EPSILON);
+                if (i < scalars.length) {
+                    scalars[i] -= step;
+                } else if (i < scalars.length + NUM_TABLE_VALUES) {
+                    midgameValues[i - scalars.length] -= step;
+                } else {
+                    endgameValues[i - scalars.length - NUM_TABLE_VALUES] -= step;
+                }
+            }
+            System.out.printf("iteration %d, loss %.6f%n", t, pass.getLoss());
+        }
+    }
+
+    /**
+     * Returns the current values of the scalar parameters.
+     */
+    private EvalParams getParams() {
+        EvalParams params = EvalParams.getDefault();
+        for (int i = 0; i < scalars.length; i++) {
+            ScalarParam scalarParam = scalarParams.get(i);
+            params = params.with(scalarParam.param, scalarParam.index, (int) Math.round(scalars[i]));
+        }
+        return params;
+    }
+
+    /**
+     * Evaluates all samples in parallel with the current parameters, with gradients if required.
+     */
+    private Pass runPass(boolean withGradient) {
+        EvalParams params = getParams();
+        List<Evaluator> evaluators = new ArrayList<>();
+        evaluators.add(new BoardEvaluator(params));
+        if (withGradient) {
+            for (ScalarParam scalarParam : scalarParams) {
+                int value = params.get(scalarParam.param, scalarParam.index);
+                evaluators.add(new BoardEvaluator(params.with(scalarParam.param, scalarParam.index, value + DIFF_STEP)));
+            }
+        }
+
+        return IntStream.range(0, games.size()).parallel()
+                .collect(() -> new Pass(withGradient), (pass, game) -> pass.addGame(game, evaluators),
+                        Pass::combine);
+    }
+
+    /**
+     * Writes the tuned parameters and piece-square values into the given directory.
+     */
+    private void write(File outputDir) throws IOException {
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IOException("Cannot create " + outputDir);
+        }
+        try (FileWriter writer = new FileWriter(new File(outputDir, "evalparams.txt"))) {
+            getParams().write(writer);
+        }
+        try (PrintWriter pw = new PrintWriter(new FileWriter(new File(outputDir, "piecevalues.txt")))) {
+            for (PieceType pieceType : PieceType.values()) {
+                writeTable(pw, pieceType, "MIDGAME", midgameValues);
+                writeTable(pw, pieceType, "ENDGAME", endgameValues);
+            }
+        }
+    }
+
+    /**
+     * Writes the table of the given piece type in the given values.
+     */
+    private static void writeTable(PrintWriter pw, PieceType pieceType, String stage, double[] values) {
+        pw.println(pieceType.name() + " " + stage);
+        for (int row = 0; row < Board.NUM_ROWS; row++) {
+            for (int col = 0; col < Board.NUM_COLS; col++) {
+                int index = pieceType.ordinal() * NUM_POINTS + row * Board.NUM_COLS + col;
+                pw.printf("%5d", Math.round(values[index]));
+            }
+            pw.println();
+        }
+    }
+
+    /**
+     * Represents a position to evaluate: the board after the given ply of its game
+     * and the given quiescence line.
+     */
+    private static class Sample {
+
+        private final int ply;
+        private final List<Move> line;
+
+        private Sample(int ply, List<Move> line) {
+            this.ply = ply;
+            this.line = Collections.unmodifiableList(new ArrayList<>(line));
+        }
+    }
+
+    /**
+     * Represents a value of a tunable parameter that is not a piece-square value.
+     */
+    private static class ScalarParam {
+
+        private final Param param;
+        private final int index;
+
+        private ScalarParam(Param param, int index) {
+            this.param = param;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Represents the loss and gradient over some games, accumulated by one thread.
+     */
+    private class Pass {
+
+        private final boolean withGradient;
+        private final double[] gradient;
+        private double loss;
+        private long count;
+
+        private Pass(boolean withGradient) {
+            this.withGradient = withGradient;
+            gradient = withGradient ? new double[scalars.length + 2 * NUM_TABLE_VALUES] : null;
+        }
+
+        /**
+         * Replays the given game and adds the loss (and gradient) of each of its samples.
+         */
+        private void addGame(int game, List<Evaluator> evaluators) {
+            Board board = Board.initialiseBoard();
+            List<Move> moves = games.get(game);
+            double result = results.get(game);
+            int ply = 0;
+
+            for (Sample sample : samples.get(game)) {
+                while (ply < sample.ply) {
+                    board.makeMove(moves.get(ply++));
+                }
+                for (Move move : sample.line) {
+                    board.makeMove(move);
+                }
+                addSample(board, result, evaluators);
+                for (int i = sample.line.size() - 1; i >= 0; i--) {
+                    board.unmakeMove(sample.line.get(i));
+                }
+            }
+        }
+
+        /**
+         * Adds the loss (and gradient) of the given board.
+         * The piece values summed by the board are replaced by the tuned piece-square values.
+         */
+        private void addSample(Board board, double result, List<Evaluator> evaluators) {
+            int phase = BoardEvaluator.getPhase(board);
+            int boardMaterial = BoardEvaluator.getMaterialScore(board, phase);
+            double midgameWeight = (double) phase / BoardEvaluator.MAX_PHASE;
+            double endgameWeight = 1 - midgameWeight;
+
+            double material = 0;
+            for (Alliance alliance : Alliance.values()) {
+                int sign = alliance.isRed() ? 1 : -1;
+                for (Piece piece : board.getPlayer(alliance).getActivePieces()) {
+                    int index = getTableIndex(piece);
+                    material += sign * (midgameValues[index] * midgameWeight + endgameValues[index] * endgameWeight);
+                }
+            }
+
+            int baseVal = evaluators.get(0).evaluate(board) - boardMaterial;
+            double val = baseVal + material;
+            double prediction = 1 / (1 + Math.exp(-scale * val));
+            prediction = Math.min(Math.max(prediction, EPSILON), 1 - EPSILON);
+            loss -= result * Math.log(prediction) + (1 - result) * Math.log(1 - prediction);
+            count++;
+            if (!withGradient) return;
+
+            double valGradient = (prediction - result) * scale;
+            for (int i = 0; i < scalars.length; i++) {
+                int diffVal = evaluators.get(i + 1).evaluate(board) - boardMaterial;
+                gradient[i] += valGradient * (diffVal - baseVal) / DIFF_STEP;
+            }
+            for (Alliance alliance : Alliance.values()) {
+                int sign = alliance.isRed() ? 1 : -1;
+                for (Piece piece : board.getPlayer(alliance).getActivePieces()) {
+                    int index = getTableIndex(piece);
+                    gradient[scalars.length + index] += valGradient * sign * midgameWeight;
+                    gradient[scalars.length + NUM_TABLE_VALUES + index] += valGradient * sign * endgameWeight;
+                }
+            }
+        }
+
+        /**
+         * Adds the loss and gradient of the given pass into this pass.
+         */
+        private void combine(Pass other) {
+            loss += other.loss;
+            count += other.count;
+            if (withGradient) {
+                for (int i = 0; i < gradient.length; i++) {
+                    gradient[i] += other.gradient[i];
+                }
+            }
+        }
+
+        /**
+         * Returns the mean loss per sample.
+         */
+        private double getLoss() {
+            return count == 0 ? 0 : loss / count;
+        }
+
+        /**
+         * Returns the mean gradient per sample.
+         */
+        private double[] getGradient() {
+            double[] meanGradient = new double[gradient.length];
+            for (int i = 0; i < gradient.length; i++) {
+                meanGradient[i] = count == 0 ? 0 : gradient[i] / count;
+            }
+            return meanGradient;
+        }
+    }
+
+    /**
+     * Returns the index of the piece-square value of the given piece, from RED's perspective.
+     */
+    private static int getTableIndex(Piece piece) {
+        int row = piece.getPosition().getRow();
+        int col = piece.getPosition().getCol();
+        if (!piece.getAlliance().isRed()) {
+            row = Board.NUM_ROWS - 1 - row;
+            col = Board.NUM_COLS - 1 - col;
+        }
+        return piece.getPieceType().ordinal() * NUM_POINTS + row * Board.NUM_COLS + col;
+    }
+}